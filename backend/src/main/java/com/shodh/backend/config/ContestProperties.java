@@ -0,0 +1,17 @@
+package com.shodh.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "contest")
+public class ContestProperties {
+    // Contests whose statement (title, description, problems) is kept serialized in memory
+    private int statementCacheSize = 64;
+    // Cache-Control max-age of statements; clients and proxies revalidate with If-None-Match afterwards
+    private Duration statementMaxAge = Duration.ofMinutes(1);
+    // Participant counts are re-read from the database this often, picking up registrations on other nodes
+    private Duration participantResyncInterval = Duration.ofSeconds(30);
+}
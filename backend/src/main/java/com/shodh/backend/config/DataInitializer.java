@@ -6,8 +6,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -18,9 +21,12 @@ public class DataInitializer implements CommandLineRunner {
     private final TestCaseRepository testCaseRepository;
     private final UserRepository userRepository;
 
+    // One transaction, so the rows go out in JDBC batches on commit
     @Override
+    @Transactional
     public void run(String... args) {
         log.info("Initializing sample data...");
+        List<TestCase> testCases = new ArrayList<>();
         
         // Create sample contest
         Contest contest1 = Contest.builder()
@@ -54,7 +60,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem1)
             .build();
-        testCaseRepository.save(tc1_1);
+        testCases.add(tc1_1);
 
         TestCase tc1_2 = TestCase.builder()
             .input("3 6\n3 2 4")
@@ -62,7 +68,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(false)
             .problem(problem1)
             .build();
-        testCaseRepository.save(tc1_2);
+        testCases.add(tc1_2);
 
         TestCase tc1_3 = TestCase.builder()
             .input("2 6\n3 3")
@@ -70,7 +76,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(false)
             .problem(problem1)
             .build();
-        testCaseRepository.save(tc1_3);
+        testCases.add(tc1_3);
 
         // Create Problem 2: Palindrome Number
         Problem problem2 = Problem.builder()
@@ -95,7 +101,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem2)
             .build();
-        testCaseRepository.save(tc2_1);
+        testCases.add(tc2_1);
 
         TestCase tc2_2 = TestCase.builder()
             .input("-121")
@@ -103,7 +109,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem2)
             .build();
-        testCaseRepository.save(tc2_2);
+        testCases.add(tc2_2);
 
         TestCase tc2_3 = TestCase.builder()
             .input("10")
@@ -111,7 +117,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(false)
             .problem(problem2)
             .build();
-        testCaseRepository.save(tc2_3);
+        testCases.add(tc2_3);
 
         // Create Problem 3: FizzBuzz
         Problem problem3 = Problem.builder()
@@ -136,7 +142,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem3)
             .build();
-        testCaseRepository.save(tc3_1);
+        testCases.add(tc3_1);
 
         TestCase tc3_2 = TestCase.builder()
             .input("15")
@@ -144,7 +150,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(false)
             .problem(problem3)
             .build();
-        testCaseRepository.save(tc3_2);
+        testCases.add(tc3_2);
 
         // Create a second contest for future
         Contest contest2 = Contest.builder()
@@ -177,7 +183,7 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem4)
             .build();
-        testCaseRepository.save(tc4_1);
+        testCases.add(tc4_1);
 
         TestCase tc4_2 = TestCase.builder()
             .input("-123")
@@ -185,23 +191,23 @@ public class DataInitializer implements CommandLineRunner {
             .isSample(true)
             .problem(problem4)
             .build();
-        testCaseRepository.save(tc4_2);
+        testCases.add(tc4_2);
 
         // Create some sample users
         User user1 = User.builder()
             .username("alice")
             .build();
-        userRepository.save(user1);
 
         User user2 = User.builder()
             .username("bob")
             .build();
-        userRepository.save(user2);
 
         User user3 = User.builder()
             .username("charlie")
             .build();
-        userRepository.save(user3);
+
+        testCaseRepository.saveAll(testCases);
+        userRepository.saveAll(List.of(user1, user2, user3));
 
         log.info("Sample data initialized successfully!");
         log.info("Contest 1 ID: {} (Active now)", contest1.getId());
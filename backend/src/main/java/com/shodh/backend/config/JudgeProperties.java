@@ -0,0 +1,206 @@
+package com.shodh.backend.config;
+
+import com.shodh.backend.model.JudgeLane;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "judge")
+public class JudgeProperties {
+    // Docker image used for every sandbox container
+    private String image = "shodh-judge:latest";
+
+    // Host directory under which each sandbox gets its own /workspace bind mount
+    private String workspaceRoot = System.getProperty("java.io.tmpdir") + "/judge";
+
+    // Wall-clock budget for the single compile step of a submission
+    private Duration compileTimeout = Duration.ofSeconds(5);
+
+    // Time limits are CPU time; a run is also stopped after this multiple of the limit in wall-clock time
+    private double wallTimeFactor = 2.0;
+
+    // Run judge orchestration (queue workers, test case tasks, stream pumps) and leaderboard stream senders on virtual threads
+    private boolean virtualThreads = false;
+
+    private Queue queue = new Queue();
+
+    private Concurrency concurrency = new Concurrency();
+
+    private Events events = new Events();
+
+    private Sandbox sandbox = new Sandbox();
+
+    private Pool pool = new Pool();
+
+    private ArtifactCache artifactCache = new ArtifactCache();
+
+    private Scheduler scheduler = new Scheduler();
+
+    private Batch batch = new Batch();
+
+    private Output output = new Output();
+
+    private WarmStart warmStart = new WarmStart();
+
+    private TestData testData = new TestData();
+
+    @Data
+    public static class Queue {
+        // Submissions judged concurrently by this node; the starting point when concurrency is adaptive
+        private int workers = 2;
+        // Idle workers look for jobs at least this often, even without a wake-up
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // A job whose lease is not renewed within this time is taken over by another worker
+        private Duration leaseTimeout = Duration.ofMinutes(2);
+        private Duration heartbeatInterval = Duration.ofSeconds(20);
+        // Leases taken on the same job before it is given up as RUNTIME_ERROR
+        private int maxAttempts = 3;
+        // Oldest queued jobs the fair-share selector chooses from on each pick
+        private int candidateWindow = 200;
+        // Admission control: beyond these, submitting answers 429 with Retry-After
+        private int maxQueued = 500;
+        private int maxQueuedPerUser = 5;
+        // Relative share of judge time per lane when several lanes have work waiting
+        private Map<JudgeLane, Integer> laneWeights = new EnumMap<>(Map.of(
+            JudgeLane.CONTEST, 8,
+            JudgeLane.CONTEST_RESUBMIT, 4,
+            JudgeLane.PRACTICE, 2,
+            JudgeLane.PRACTICE_RESUBMIT, 1
+        ));
+    }
+
+    @Data
+    public static class Concurrency {
+        // Adapt the number of submissions judged at once; otherwise it stays at queue.workers
+        private boolean adaptive = true;
+        private int minLimit = 1;
+        // 0 means one per CPU
+        private int maxLimit = 0;
+        private Duration adjustInterval = Duration.ofSeconds(5);
+        // Back off when wall/CPU time of runs exceeds the recent baseline by this factor
+        private double inflationTolerance = 1.5;
+        // ... or when tasks waited for a CPU more than this percentage of the last 10 seconds
+        private double maxCpuPressure = 25.0;
+        // PSI file; point it at the judge's cgroup (e.g. <cgroup>/cpu.pressure) to watch only sandboxes
+        private String pressureFile = "/proc/pressure/cpu";
+        private double backoffRatio = 0.75;
+        // Grow only while claimed jobs had waited longer than this
+        private Duration targetQueueLatency = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class Events {
+        // Submission event streams are closed by the server after this long
+        private Duration timeout = Duration.ofMinutes(2);
+        // How often open streams are checked for verdicts reached on other nodes and kept alive
+        private Duration sweepInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Sandbox {
+        // docker, local (plain processes under rlimits/cgroups/namespaces) or fake (no execution, for tests and benchmarks)
+        private String backend = "docker";
+        private Local local = new Local();
+        private Fake fake = new Fake();
+    }
+
+    @Data
+    public static class Local {
+        // Delegated cgroup v2 directory the judge may create child groups in (memory, pids and CPU limits)
+        private String cgroupRoot = "";
+        // Run each command in new user, mount, network, IPC, UTS and PID namespaces via unshare(1), with the
+        // judge's own files (temp dir, workspaces, test data, artifact cache) hidden from the program
+        private boolean unshare = true;
+        // Start without a cgroup root or without namespaces, e.g. on a developer machine; refused otherwise
+        private boolean allowUnconfined = false;
+        // Enforced per sandbox inside its user namespace
+        private int maxProcesses = 256;
+        private int maxOpenFiles = 256;
+        // Address-space rlimit; only a backstop, since the JVM and V8 reserve several GB up front
+        private int maxAddressSpaceMb = 16384;
+        private int maxFileSizeMb = 64;
+        // Size of the empty tmpfs mounted over each hidden directory
+        private int scratchSizeMb = 64;
+    }
+
+    @Data
+    public static class Fake {
+        // Usage reported for every fake run
+        private long cpuTimeUs = 1000;
+        private long peakMemoryKb = 1024;
+    }
+
+    @Data
+    public static class Pool {
+        private boolean enabled = true;
+        private List<String> languages = new ArrayList<>(List.of("java", "python", "cpp", "javascript"));
+        // Upper bound of containers per language (leased + idle)
+        private int maxSize = 4;
+        // Containers kept warm per language even when nothing is being judged
+        private int minIdle = 1;
+        // A container is destroyed and replaced after this many leases
+        private int maxUses = 100;
+        private int memoryMb = 256;
+        private Duration idleTimeout = Duration.ofMinutes(5);
+        private Duration healthCheckInterval = Duration.ofSeconds(30);
+        private Duration leaseTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Scheduler {
+        // Workers running test cases across all submissions, 0 means one per CPU
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class Batch {
+        // Languages whose test cases all run in one sandbox invocation instead of one per test case
+        private List<String> languages = new ArrayList<>();
+    }
+
+    @Data
+    public static class Output {
+        // Writing more than this to stdout ends the run with OUTPUT_LIMIT_EXCEEDED
+        private DataSize limit = DataSize.ofMegabytes(64);
+        // Prefix of stdout/stderr kept for the submission record
+        private DataSize retain = DataSize.ofKilobytes(64);
+        // Kill the program as soon as its output diverges from the expected answer
+        private boolean killOnMismatch = false;
+    }
+
+    @Data
+    public static class WarmStart {
+        // Start java with the start-up cache shipped in the judge image
+        private boolean enabled = true;
+        // CDS archive built into the image, serial GC and no perf-data file; a missing archive is silently ignored
+        private String javaOptions = "-XX:SharedArchiveFile=/opt/judge/java.jsa -Xshare:auto -XX:+UseSerialGC -XX:-UsePerfData";
+    }
+
+    @Data
+    public static class TestData {
+        // Required. The database only keeps hashes into this directory, so it must be persistent, and shared by
+        // every judge node
+        private String dir = "";
+        // Refuse to start when a test case references a blob that is not in the directory
+        private boolean verifyOnStartup = true;
+        // gzip new blobs; saves disk for large, repetitive tests at the cost of decompressing on every run
+        private boolean compress = false;
+        // How long before a contest starts its test data is pulled into the page cache
+        private Duration prefetchLead = Duration.ofMinutes(30);
+        private Duration prefetchInterval = Duration.ofMinutes(1);
+    }
+
+    @Data
+    public static class ArtifactCache {
+        private boolean enabled = true;
+        private String dir = System.getProperty("java.io.tmpdir") + "/judge-artifacts";
+        private long maxSizeMb = 512;
+    }
+}
@@ -0,0 +1,34 @@
+package com.shodh.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "leaderboard")
+public class LeaderboardProperties {
+    // Accepted submissions are re-read from the database this often, picking up verdicts judged on other nodes
+    private Duration resyncInterval = Duration.ofMinutes(1);
+    // Largest page one leaderboard request may ask for
+    private int maxPageSize = 500;
+    // Entries shown above and below a user by the user-standing query when none are requested
+    private int defaultNeighbors = 5;
+    // Cache-Control max-age of leaderboard pages; clients and proxies revalidate with If-None-Match afterwards
+    private Duration cacheMaxAge = Duration.ofSeconds(5);
+    // Standings of an ended contest are dropped once unread this long, and rebuilt from the database when read again
+    private Duration finishedIdleTimeout = Duration.ofMinutes(10);
+
+    private Stream stream = new Stream();
+
+    @Data
+    public static class Stream {
+        // Rank changes are collected and pushed to subscribers as one delta per interval
+        private Duration coalesceInterval = Duration.ofSeconds(1);
+        // Deltas buffered per subscriber; one that falls further behind gets a full snapshot instead
+        private int queueCapacity = 16;
+        // Streams are closed by the server after this long; EventSource reconnects and starts from a snapshot
+        private Duration timeout = Duration.ofMinutes(30);
+        private Duration keepAliveInterval = Duration.ofSeconds(15);
+    }
+}
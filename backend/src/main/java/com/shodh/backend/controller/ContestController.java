@@ -1,12 +1,23 @@
 package com.shodh.backend.controller;
 
+import com.shodh.backend.config.ContestProperties;
+import com.shodh.backend.config.LeaderboardProperties;
 import com.shodh.backend.dto.ContestResponse;
+import com.shodh.backend.dto.ContestStatusResponse;
 import com.shodh.backend.dto.LeaderboardResponse;
+import com.shodh.backend.leaderboard.LeaderboardSnapshot;
 import com.shodh.backend.service.ContestService;
+import com.shodh.backend.service.ContestStatement;
 import com.shodh.backend.service.LeaderboardService;
+import com.shodh.backend.service.LeaderboardStreamService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/contests")
@@ -15,6 +26,9 @@ import org.springframework.web.bind.annotation.*;
 public class ContestController {
     private final ContestService contestService;
     private final LeaderboardService leaderboardService;
+    private final LeaderboardStreamService leaderboardStreamService;
+    private final LeaderboardProperties leaderboardProperties;
+    private final ContestProperties contestProperties;
 
     @GetMapping("/{contestId}")
     public ResponseEntity<ContestResponse> getContest(@PathVariable Long contestId) {
@@ -22,9 +36,85 @@ public class ContestController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Title, description, times and problem statements, without counters; fixed while the
+     * contest runs, so clients fetch it once and revalidate by ETag.
+     */
+    @GetMapping("/{contestId}/statement")
+    public ResponseEntity<byte[]> getStatement(@PathVariable Long contestId,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ContestStatement statement = contestService.getStatement(contestId);
+        CacheControl cacheControl = CacheControl.maxAge(contestProperties.getStatementMaxAge()).cachePublic();
+        if (EntityTags.matches(ifNoneMatch, statement.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(statement.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(statement.etag())
+            .cacheControl(cacheControl)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(statement.json());
+    }
+
+    /**
+     * Participant count, whether the contest is running and per-problem submission counts.
+     */
+    @GetMapping("/{contestId}/status")
+    public ResponseEntity<ContestStatusResponse> getStatus(@PathVariable Long contestId) {
+        return ResponseEntity.ok(contestService.getStatus(contestId));
+    }
+
+    /**
+     * The whole board, or a page of it with {@code offset}/{@code limit}; {@code top=K} is
+     * shorthand for the first K entries.
+     */
     @GetMapping("/{contestId}/leaderboard")
-    public ResponseEntity<LeaderboardResponse> getLeaderboard(@PathVariable Long contestId) {
-        LeaderboardResponse response = leaderboardService.getLeaderboard(contestId);
+    public ResponseEntity<byte[]> getLeaderboard(@PathVariable Long contestId,
+                                                 @RequestParam(defaultValue = "0") int offset,
+                                                 @RequestParam(required = false) Integer limit,
+                                                 @RequestParam(required = false) Integer top,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        LeaderboardSnapshot snapshot;
+        if (top != null) {
+            snapshot = leaderboardService.getSnapshot(contestId, 0, pageSize(top));
+        } else if (limit != null || offset > 0) {
+            snapshot = leaderboardService.getSnapshot(contestId, offset, pageSize(limit));
+        } else {
+            snapshot = leaderboardService.getSnapshot(contestId, 0, Integer.MAX_VALUE);
+        }
+        // Lets browsers and the nginx cache reuse a response for a few seconds, then revalidate by ETag
+        CacheControl cacheControl = CacheControl.maxAge(leaderboardProperties.getCacheMaxAge()).cachePublic();
+        if (EntityTags.matches(ifNoneMatch, snapshot.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(snapshot.etag())
+            .cacheControl(cacheControl)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(snapshot.json());
+    }
+
+    @GetMapping("/{contestId}/leaderboard/users/{username}")
+    public ResponseEntity<LeaderboardResponse> getUserStanding(@PathVariable Long contestId,
+                                                               @PathVariable String username,
+                                                               @RequestParam(required = false) Integer neighbors) {
+        int around = neighbors == null ? leaderboardProperties.getDefaultNeighbors()
+            : Math.min(Math.max(0, neighbors), leaderboardProperties.getMaxPageSize() / 2);
+        LeaderboardResponse response = leaderboardService.getUserStanding(contestId, username, around);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Server-sent events: a {@code snapshot} of the top entries, then a {@code delta} of rank
+     * changes per coalescing interval, and a new snapshot whenever the client fell behind.
+     */
+    @GetMapping(value = "/{contestId}/leaderboard/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLeaderboard(@PathVariable Long contestId,
+                                        @RequestParam(required = false) Integer top) {
+        return leaderboardStreamService.subscribe(contestId, pageSize(top));
+    }
+
+    private int pageSize(Integer requested) {
+        int max = leaderboardProperties.getMaxPageSize();
+        return requested == null ? max : Math.min(requested, max);
+    }
 }
@@ -0,0 +1,28 @@
+package com.shodh.backend.controller;
+
+/**
+ * Conditional GET support for responses served from pre-serialized bytes.
+ */
+final class EntityTags {
+    private EntityTags() {
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header value names {@code etag}.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
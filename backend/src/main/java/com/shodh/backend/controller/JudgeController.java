@@ -0,0 +1,65 @@
+package com.shodh.backend.controller;
+
+import com.shodh.backend.judge.ArtifactCache;
+import com.shodh.backend.judge.SandboxPool;
+import com.shodh.backend.judge.TestCaseScheduler;
+import com.shodh.backend.judge.TestDataStore;
+import com.shodh.backend.service.JudgeDispatcher;
+import com.shodh.backend.service.LeaderboardStreamService;
+import com.shodh.backend.service.SubmissionEventService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/judge")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:5173"}, allowCredentials = "true")
+public class JudgeController {
+    private final SandboxPool sandboxPool;
+    private final ArtifactCache artifactCache;
+    private final TestCaseScheduler testCaseScheduler;
+    private final TestDataStore testDataStore;
+    private final JudgeDispatcher judgeDispatcher;
+    private final SubmissionEventService submissionEventService;
+    private final LeaderboardStreamService leaderboardStreamService;
+    private final DataSource dataSource;
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("queue", judgeDispatcher.stats());
+        response.put("submissionEvents", submissionEventService.stats());
+        response.put("leaderboardStreams", leaderboardStreamService.stats());
+        response.put("sandboxPool", sandboxPool.stats());
+        response.put("artifactCache", artifactCache.stats());
+        response.put("testCaseScheduler", testCaseScheduler.stats());
+        response.put("testData", testDataStore.stats());
+        response.put("connectionPool", connectionPoolStats());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> connectionPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        try {
+            HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            if (pool != null) {
+                stats.put("active", pool.getActiveConnections());
+                stats.put("idle", pool.getIdleConnections());
+                stats.put("total", pool.getTotalConnections());
+                // Requests blocked waiting for a connection; stays at 0 unless the pool is starved
+                stats.put("waiting", pool.getThreadsAwaitingConnection());
+            }
+        } catch (SQLException e) {
+            stats.put("error", "Not a Hikari data source");
+        }
+        return stats;
+    }
+}
@@ -2,12 +2,15 @@ package com.shodh.backend.controller;
 
 import com.shodh.backend.dto.SubmissionRequest;
 import com.shodh.backend.dto.SubmissionResponse;
+import com.shodh.backend.service.SubmissionEventService;
 import com.shodh.backend.service.SubmissionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/submissions")
@@ -15,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001", "http://localhost:5173"}, allowCredentials = "true")
 public class SubmissionController {
     private final SubmissionService submissionService;
+    private final SubmissionEventService submissionEventService;
 
     @PostMapping
     public ResponseEntity<SubmissionResponse> submitCode(@Valid @RequestBody SubmissionRequest request) {
@@ -27,4 +31,9 @@ public class SubmissionController {
         SubmissionResponse response = submissionService.getSubmissionById(submissionId);
         return ResponseEntity.ok(response);
     }
+
+    @GetMapping(value = "/{submissionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSubmissionEvents(@PathVariable Long submissionId) {
+        return submissionEventService.subscribe(submissionId);
+    }
 }
@@ -0,0 +1,23 @@
+package com.shodh.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The parts of a contest that change while it runs; combined with its statement this is the
+ * full {@link ContestResponse}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContestStatusResponse {
+    private Long id;
+    private Integer participantsCount;
+    private Boolean isActive;
+    private List<ProblemStatsResponse> problems;
+}
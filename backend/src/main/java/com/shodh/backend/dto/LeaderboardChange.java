@@ -0,0 +1,20 @@
+package com.shodh.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaderboardChange {
+    private String username;
+    private Integer problemsSolved;
+    private Integer totalPoints;
+    private Long totalTime; // in milliseconds
+    // 0 when the user was not on the board before
+    private Integer oldRank;
+    private Integer newRank;
+}
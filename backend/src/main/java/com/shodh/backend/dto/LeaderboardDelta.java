@@ -0,0 +1,27 @@
+package com.shodh.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rank changes of a contest since the previous delta. Users not listed kept their relative
+ * order; a client holding the board applies it by removing every listed user and inserting
+ * them again at {@code newRank}, best rank first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LeaderboardDelta {
+    private Long contestId;
+    // Version of the standings after these changes; snapshots of this version or later already contain them
+    private Long version;
+    private Integer totalEntries;
+    private LocalDateTime lastUpdated;
+    private List<LeaderboardChange> changes;
+}
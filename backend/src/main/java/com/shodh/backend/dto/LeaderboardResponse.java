@@ -17,5 +17,10 @@ public class LeaderboardResponse {
     private String contestTitle;
     private LocalDateTime lastUpdated;
     private List<LeaderboardEntry> entries;
+    // Everyone on the board; entries may be just a page of it
+    private Integer totalEntries;
+    private Integer offset;
+    // Set by the user-standing query: the user's rank, with neighbors around them in entries
+    private Integer userRank;
 }
 
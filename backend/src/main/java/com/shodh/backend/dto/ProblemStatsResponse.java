@@ -0,0 +1,16 @@
+package com.shodh.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProblemStatsResponse {
+    private Long id;
+    private Integer totalSubmissions;
+    private Integer acceptedSubmissions;
+}
@@ -0,0 +1,26 @@
+package com.shodh.backend.dto;
+
+import com.shodh.backend.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Payload of the submission event stream: the current status and, while running, how many
+ * test cases have finished. Unlike {@link SubmissionResponse} it never carries the code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SubmissionEvent {
+    private Long submissionId;
+    private SubmissionStatus status;
+    private Integer completedTests;
+    private Integer totalTests;
+    private Long executionTime;
+    private Long memoryUsed;
+    private String output;
+    private String error;
+}
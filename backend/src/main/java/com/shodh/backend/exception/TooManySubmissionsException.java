@@ -0,0 +1,17 @@
+package com.shodh.backend.exception;
+
+import lombok.Getter;
+
+/**
+ * The judge queue cannot take another submission right now; answered with 429 and a
+ * {@code Retry-After} of {@link #getRetryAfterSeconds()}.
+ */
+@Getter
+public class TooManySubmissionsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManySubmissionsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
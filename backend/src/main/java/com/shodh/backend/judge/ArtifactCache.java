@@ -0,0 +1,219 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed, size-bounded LRU cache of compiled artifacts on local disk.
+ * Entries are keyed by a SHA-256 of the sandbox toolchain, the language, the full generated
+ * source and the compile command, so a byte-identical resubmission costs a directory copy
+ * instead of a {@code javac}/{@code g++} run, and entries left by an older judge image are
+ * never served. While the backend cannot identify its toolchain, compiles bypass the cache.
+ */
+@Component
+@Slf4j
+public class ArtifactCache {
+    private final JudgeProperties properties;
+    private final SandboxBackend sandboxBackend;
+    private final Path root;
+    private final long maxBytes;
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+
+    public ArtifactCache(JudgeProperties properties, SandboxBackend sandboxBackend) {
+        this.properties = properties;
+        this.sandboxBackend = sandboxBackend;
+        this.root = Paths.get(properties.getArtifactCache().getDir());
+        this.maxBytes = properties.getArtifactCache().getMaxSizeMb() * 1024L * 1024L;
+        if (isEnabled()) {
+            loadExisting();
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getArtifactCache().isEnabled();
+    }
+
+    /**
+     * @return null if the toolchain is unknown and the artifact must not be cached
+     */
+    public String key(String language, String source, String compileCommand) {
+        String toolchainId = sandboxBackend.toolchainId();
+        if (toolchainId == null) {
+            bypassed.incrementAndGet();
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(toolchainId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(language.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(compileCommand.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Copies the cached artifact for {@code key} into {@code target}.
+     *
+     * @return true on a cache hit
+     */
+    public boolean copyTo(String key, Path target) {
+        lock.readLock().lock();
+        try {
+            // get() on an access-ordered map mutates it, so the lookup itself needs the monitor
+            Long size;
+            synchronized (entries) {
+                size = entries.get(key);
+            }
+            if (size == null) {
+                misses.incrementAndGet();
+                return false;
+            }
+            JudgeFiles.copyContents(root.resolve(key), target);
+            hits.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to read cached artifact {}: {}", key, e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(String key, Path compiledDir) {
+        Path staging = null;
+        try {
+            Files.createDirectories(root);
+            staging = Files.createTempDirectory(root, ".staging-");
+            JudgeFiles.copyContents(compiledDir, staging);
+            long size = sizeOf(staging);
+            if (size > maxBytes) {
+                JudgeFiles.deleteRecursively(staging);
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (entries.containsKey(key)) {
+                    JudgeFiles.deleteRecursively(staging);
+                    return;
+                }
+                Files.move(staging, root.resolve(key), StandardCopyOption.ATOMIC_MOVE);
+                synchronized (entries) {
+                    entries.put(key, size);
+                }
+                totalBytes += size;
+                stores.incrementAndGet();
+                evictOverflow();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to cache artifact {}: {}", key, e.getMessage());
+            try {
+                JudgeFiles.deleteRecursively(staging);
+            } catch (IOException ignored) {
+                // Best effort
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("stores", stores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("bypassed", bypassed.get());
+        lock.readLock().lock();
+        try {
+            synchronized (entries) {
+                stats.put("entries", entries.size());
+            }
+            stats.put("sizeBytes", totalBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("maxSizeBytes", maxBytes);
+        return stats;
+    }
+
+    // Caller holds the write lock
+    private void evictOverflow() throws IOException {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            JudgeFiles.deleteRecursively(root.resolve(eldest.getKey()));
+            totalBytes -= eldest.getValue();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void loadExisting() {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> dirs = Files.list(root)) {
+            List<Path> existing = dirs.filter(Files::isDirectory).toList();
+            List<Path> ordered = new ArrayList<>();
+            for (Path dir : existing) {
+                if (dir.getFileName().toString().startsWith(".staging-")) {
+                    JudgeFiles.deleteRecursively(dir);
+                } else {
+                    ordered.add(dir);
+                }
+            }
+            // Oldest first so the access order roughly matches last use before the restart
+            ordered.sort(Comparator.comparingLong(dir -> dir.toFile().lastModified()));
+            for (Path dir : ordered) {
+                long size = sizeOf(dir);
+                entries.put(dir.getFileName().toString(), size);
+                totalBytes += size;
+            }
+            evictOverflow();
+            log.info("Artifact cache loaded {} entries ({} bytes) from {}", entries.size(), totalBytes, root);
+        } catch (IOException e) {
+            log.warn("Could not load artifact cache from {}: {}", root, e.getMessage());
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.shodh.backend.judge;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Support for running all test inputs of a submission with a single sandbox
+ * invocation. The inputs are copied into the workspace and {@code batch-runner.sh} into the
+ * report directory; it reports every test as a length-prefixed frame on its stdout.
+ */
+public final class BatchRunner {
+    public static final String SCRIPT = "batch-runner.sh";
+    public static final String INVOCATION = "sh \"$JUDGE_REPORT_DIR/" + SCRIPT + "\"";
+    private static final String FRAME_MARKER = "@@";
+    private static final int MAX_HEADER_BYTES = 256;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Writes the runner and {@code measure.sh} into the report directory and creates the
+     * {@code batch/in} directory that {@link #inputFile} paths point into.
+     */
+    public static void prepare(Path workspace, Path reportDir) throws IOException {
+        JudgeFiles.copyResource("/judge/" + SCRIPT, reportDir.resolve(SCRIPT));
+        ResourceUsage.install(reportDir);
+        Files.createDirectories(workspace.resolve("batch").resolve("in"));
+    }
+
+    /**
+     * Where the runner reads stdin for test {@code index} from.
+     */
+    public static Path inputFile(Path workspace, int index) {
+        return workspace.resolve("batch").resolve("in").resolve(String.valueOf(index));
+    }
+
+    public static String command(String runCommand, int cpuLimitSeconds, int wallLimitSeconds, int testCount, boolean stopOnError,
+                                 long outputLimitBytes) {
+        // Same slack as a single measured run
+        return INVOCATION + " " + (cpuLimitSeconds + 1) + " " + wallLimitSeconds + " " + testCount + " " + (stopOnError ? 1 : 0)
+            + " '" + runCommand.replace("'", "'\\''") + "' " + outputBlocks(outputLimitBytes);
+    }
+
+    /**
+     * Reads frames as the runner writes them until its stdout is exhausted or {@code consumer}
+     * returns false. The runner's output is untrusted: headers are validated, and no frame may
+     * be longer than {@code ulimit -f} lets the program write. Each frame's stdout is streamed
+     * through the comparator for its test and only the first {@code retainBytes} of stdout and
+     * stderr are kept, so a batch never holds more than that per test on the heap.
+     */
+    public static void read(InputStream stream, int testCount, long outputLimitBytes, int retainBytes,
+                            IntFunction<OutputComparator> comparators, Predicate<Frame> consumer) throws IOException {
+        InputStream in = new BufferedInputStream(stream);
+        long maxFrameBytes = outputBlocks(outputLimitBytes) * 512;
+        byte[] buffer = new byte[8192];
+        int expectedIndex = 0;
+        String header;
+        while ((header = readHeader(in)) != null) {
+            String[] parts = header.trim().split(" ");
+            if (parts.length != 9 || !FRAME_MARKER.equals(parts[0])) {
+                throw new IOException("Malformed batch frame header: " + header);
+            }
+            int index;
+            long stdoutBytes;
+            long stderrBytes;
+            ResourceUsage usage;
+            try {
+                index = Integer.parseInt(parts[1]);
+                usage = ResourceUsage.parse(String.join(" ", Arrays.copyOfRange(parts, 2, 7)));
+                stdoutBytes = Long.parseLong(parts[7]);
+                stderrBytes = Long.parseLong(parts[8]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed batch frame header: " + header, e);
+            }
+            if (index != expectedIndex++ || index >= testCount) {
+                throw new IOException("Unexpected batch frame " + index);
+            }
+            if (stdoutBytes < 0 || stdoutBytes > maxFrameBytes || stderrBytes < 0 || stderrBytes > maxFrameBytes) {
+                throw new IOException("Batch frame " + index + " exceeds the output limit");
+            }
+
+            OutputComparator comparator = comparators.apply(index);
+            ByteArrayOutputStream stdout = new ByteArrayOutputStream((int) Math.min(stdoutBytes, retainBytes));
+            long remaining = stdoutBytes;
+            while (remaining > 0) {
+                int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (n < 0) {
+                    throw new EOFException("Batch frame " + index + " truncated");
+                }
+                comparator.feed(buffer, 0, n);
+                stdout.write(buffer, 0, (int) Math.min(n, Math.max(0, retainBytes - stdout.size())));
+                remaining -= n;
+            }
+            byte[] stderr = readRetained(in, stderrBytes, retainBytes);
+
+            if (!consumer.test(new Frame(index, usage, stdout.toByteArray(), stderr, comparator.finish()))) {
+                return;
+            }
+        }
+    }
+
+    private static byte[] readRetained(InputStream in, long length, int retainBytes) throws IOException {
+        byte[] retained = in.readNBytes((int) Math.min(length, retainBytes));
+        if (retained.length < Math.min(length, retainBytes)) {
+            throw new EOFException("Batch frame truncated");
+        }
+        // Throws EOFException if the stream ends first
+        in.skipNBytes(length - retained.length);
+        return retained;
+    }
+
+    // ulimit -f counts 512-byte blocks
+    private static long outputBlocks(long outputLimitBytes) {
+        return (outputLimitBytes + 511) / 512;
+    }
+
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            if (line.size() == MAX_HEADER_BYTES) {
+                throw new IOException("Batch frame header too long");
+            }
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * One test's report; {@code stdout} and {@code stderr} are the retained prefixes only.
+     */
+    public record Frame(int index, ResourceUsage usage, byte[] stdout, byte[] stderr, boolean outputMatched) {
+        public int exitCode() {
+            return usage.exitCode();
+        }
+
+        public boolean outputLimitExceeded() {
+            // 128 + SIGXFSZ
+            return usage.exitCode() == 153;
+        }
+    }
+}
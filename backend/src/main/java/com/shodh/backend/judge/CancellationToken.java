@@ -0,0 +1,47 @@
+package com.shodh.backend.judge;
+
+/**
+ * Cooperative cancellation for a single test-case run. The running code registers how
+ * to abort itself (kill the sandbox process) and {@link #cancel()} invokes it.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+    private Runnable onCancel;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers the abort action for the current step. Runs it immediately if the
+     * token has already been cancelled.
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                onCancel = action;
+                return;
+            }
+        }
+        action.run();
+    }
+
+    public synchronized void clear() {
+        onCancel = null;
+    }
+
+    public void cancel() {
+        Runnable action;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            action = onCancel;
+            onCancel = null;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+}
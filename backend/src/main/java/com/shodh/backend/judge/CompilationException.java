@@ -0,0 +1,11 @@
+package com.shodh.backend.judge;
+
+/**
+ * Thrown when the submitted code itself fails to compile, as opposed to an
+ * infrastructure failure while trying to compile it.
+ */
+public class CompilationException extends RuntimeException {
+    public CompilationException(String message) {
+        super(message);
+    }
+}
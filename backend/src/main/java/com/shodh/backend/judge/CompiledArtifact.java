@@ -0,0 +1,38 @@
+package com.shodh.backend.judge;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Output of the compile stage of a submission: a host directory holding everything a
+ * test run needs (class files, native binary or interpreter source) and the command
+ * that runs it from inside /workspace.
+ */
+@Getter
+@Slf4j
+public class CompiledArtifact {
+    private final String language;
+    private final Path directory;
+    private final String runCommand;
+
+    public CompiledArtifact(String language, Path directory, String runCommand) {
+        this.language = language;
+        this.directory = directory;
+        this.runCommand = runCommand;
+    }
+
+    public void copyTo(Path workspace) throws IOException {
+        JudgeFiles.copyContents(directory, workspace);
+    }
+
+    public void delete() {
+        try {
+            JudgeFiles.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.error("Error cleaning up artifact {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every sandbox as a container of {@code judge.image} through the {@code docker} CLI.
+ * Pooled sandboxes idle on {@code sleep infinity} and get work via {@code docker exec}.
+ * Programs run as {@code coderunner}; measured runs start the judge's scripts as root, which
+ * drop to {@code coderunner} for the program and keep their reports in a mount of a private
+ * directory of the judge's user.
+ */
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.backend", havingValue = "docker", matchIfMissing = true)
+@Slf4j
+public class DockerSandboxBackend implements SandboxBackend {
+    private static final String LABEL = "shodh.sandbox";
+    private static final Duration DOCKER_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration RESET_TIMEOUT = Duration.ofSeconds(5);
+    private static final String RUN_AS = "coderunner";
+    // coderunner's uid in docker/judge/Dockerfile
+    private static final int RUN_AS_UID = 1000;
+    private static final String REPORT_MOUNT = "/run/judge-report";
+    private static final List<String> MEASURED_ENV = List.of(
+        "-e", "JUDGE_REPORT_DIR=" + REPORT_MOUNT,
+        "-e", "JUDGE_CONFINE=setpriv --reuid=" + RUN_AS + " --regid=" + RUN_AS + " --init-groups --reset-env sh -c",
+        "-e", "JUDGE_CLEANUP=pkill -9 -u " + RUN_AS);
+
+    private final JudgeProperties properties;
+    // judge.image resolved to an image id on first use, so a rebuilt tag takes effect on restart only
+    private volatile String imageId;
+
+    public DockerSandboxBackend(JudgeProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String name() {
+        return "docker";
+    }
+
+    @Override
+    public String toolchainId() {
+        // Not the tag: what it points to changes when the image is rebuilt
+        return imageId();
+    }
+
+    @Override
+    public void start(Sandbox sandbox) {
+        checkReportDir(sandbox.getReportDir());
+        int exit = docker(DOCKER_TIMEOUT,
+            "run", "-d",
+            "--name", sandbox.getName(),
+            "--label", LABEL + "=" + sandbox.getLanguage(),
+            "--network", "none",
+            "--memory", sandbox.getMemoryLimitMb() + "m",
+            "--memory-swap", sandbox.getMemoryLimitMb() + "m",
+            "--cpus", "1",
+            "--pids-limit", "256",
+            // Own cgroup namespace so measure.sh sees this sandbox's accounting at /sys/fs/cgroup
+            "--cgroupns", "private",
+            "--user", RUN_AS,
+            "-v", sandbox.getWorkspace().toAbsolutePath() + ":/workspace",
+            // Host directory only the judge can write; root in the container writes through it
+            "-v", sandbox.getReportDir().toAbsolutePath() + ":" + REPORT_MOUNT,
+            "-w", "/workspace",
+            image(),
+            "sleep", "infinity");
+        if (exit != 0) {
+            throw new RuntimeException("docker run exited with code " + exit);
+        }
+    }
+
+    @Override
+    public void setMemoryLimit(Sandbox sandbox, int memoryLimitMb) {
+        int exit = docker(DOCKER_TIMEOUT, "update",
+            "--memory", memoryLimitMb + "m",
+            "--memory-swap", memoryLimitMb + "m",
+            sandbox.getName());
+        if (exit != 0) {
+            throw new RuntimeException("Failed to set memory limit on sandbox " + sandbox.getName());
+        }
+    }
+
+    @Override
+    public Process exec(Sandbox sandbox, String command) throws IOException {
+        return new ProcessBuilder("docker", "exec", "-i", sandbox.getName(), "sh", "-c", command)
+            .redirectErrorStream(false)
+            .start();
+    }
+
+    @Override
+    public Process execMeasured(Sandbox sandbox, String command) throws IOException {
+        List<String> args = new ArrayList<>(List.of("docker", "exec", "-i", "-u", "root"));
+        args.addAll(MEASURED_ENV);
+        args.addAll(List.of(sandbox.getName(), "sh", "-c", command));
+        return new ProcessBuilder(args)
+            .redirectErrorStream(false)
+            .start();
+    }
+
+    /**
+     * The container's init process survives because signals from inside its PID namespace
+     * cannot kill it.
+     */
+    @Override
+    public void killProcesses(Sandbox sandbox) {
+        docker(RESET_TIMEOUT, "exec", "-u", "root", sandbox.getName(), "pkill", "-9", "-u", RUN_AS);
+    }
+
+    @Override
+    public boolean reset(Sandbox sandbox) {
+        // Files written by the judge user are not necessarily deletable from the host, so wipe from inside
+        return docker(RESET_TIMEOUT, "exec", "-u", "root", sandbox.getName(), "sh", "-c",
+            "pkill -9 -u " + RUN_AS + "; find /workspace " + REPORT_MOUNT + " -mindepth 1 -delete") == 0;
+    }
+
+    @Override
+    public boolean isHealthy(Sandbox sandbox) {
+        return docker(RESET_TIMEOUT, "exec", sandbox.getName(), "true") == 0;
+    }
+
+    @Override
+    public void destroy(Sandbox sandbox) {
+        docker(DOCKER_TIMEOUT, "rm", "-f", sandbox.getName());
+    }
+
+    @Override
+    public void removeOrphans() {
+        try {
+            Process process = new ProcessBuilder("docker", "ps", "-aq", "--filter", "label=" + LABEL)
+                .redirectErrorStream(true)
+                .start();
+            String ids = new String(process.getInputStream().readAllBytes()).trim();
+            process.waitFor(DOCKER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            if (!ids.isEmpty()) {
+                List<String> args = new ArrayList<>(List.of("rm", "-f"));
+                args.addAll(Arrays.asList(ids.split("\\s+")));
+                docker(DOCKER_TIMEOUT, args.toArray(new String[0]));
+                log.info("Removed {} orphaned sandbox containers", args.size() - 2);
+            }
+        } catch (IOException e) {
+            log.warn("Could not list orphaned sandboxes: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public Process run(String runId, Path workDir, String command, int memoryLimitMb) throws IOException {
+        return new ProcessBuilder(runArgs(runId, workDir, memoryLimitMb, List.of("--user", RUN_AS), command))
+            .redirectErrorStream(false)
+            .start();
+    }
+
+    @Override
+    public Process runMeasured(String runId, Path workDir, Path reportDir, String command, int memoryLimitMb) throws IOException {
+        checkReportDir(reportDir);
+        List<String> options = new ArrayList<>(List.of("--user", "root",
+            "-v", reportDir.toAbsolutePath() + ":" + REPORT_MOUNT));
+        options.addAll(MEASURED_ENV);
+        return new ProcessBuilder(runArgs(runId, workDir, memoryLimitMb, options, command))
+            .redirectErrorStream(false)
+            .start();
+    }
+
+    @Override
+    public void kill(String runId) {
+        try {
+            new ProcessBuilder("docker", "kill", runId)
+                .start()
+                .waitFor(2, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Failed to kill container {}: {}", runId, e.getMessage());
+        }
+    }
+
+    /**
+     * The program must not own the reports, which it would if the judge ran as coderunner's uid.
+     */
+    private static void checkReportDir(Path reportDir) {
+        try {
+            if ((Integer) Files.getAttribute(reportDir, "unix:uid") == RUN_AS_UID) {
+                throw new IllegalStateException("Report directory " + reportDir + " is owned by uid " + RUN_AS_UID
+                    + ", which programs run as; run the judge as another user");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Report directory " + reportDir + " is not usable", e);
+        }
+    }
+
+    private List<String> runArgs(String runId, Path workDir, int memoryLimitMb, List<String> options, String command) {
+        List<String> args = new ArrayList<>(List.of(
+            "docker", "run",
+            "--name", runId,
+            "--rm", // Auto-remove container after execution
+            "--network", "none", // Disable network access for security
+            "--memory", memoryLimitMb + "m", // Memory limit
+            "--memory-swap", memoryLimitMb + "m", // No swap, so exceeding the limit is an OOM kill
+            "--cpus", "1", // CPU limit
+            "--cgroupns", "private", // measure.sh reads this container's cgroup
+            "-v", workDir.toAbsolutePath() + ":/workspace", // Mount code directory
+            "-w", "/workspace"));
+        args.addAll(options);
+        args.addAll(List.of(image(), "sh", "-c", command));
+        return args;
+    }
+
+    private String image() {
+        String id = imageId();
+        return id != null ? id : properties.getImage();
+    }
+
+    private String imageId() {
+        String id = imageId;
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            if (imageId == null) {
+                imageId = inspectImageId();
+            }
+            return imageId;
+        }
+    }
+
+    private String inspectImageId() {
+        try {
+            Process process = new ProcessBuilder("docker", "image", "inspect", "--format", "{{.Id}}", properties.getImage())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            String id = new String(process.getInputStream().readAllBytes()).trim();
+            if (process.waitFor(DOCKER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) && process.exitValue() == 0 && !id.isEmpty()) {
+                log.info("Judge image {} is {}", properties.getImage(), id);
+                return id;
+            }
+            log.warn("Could not resolve judge image {}, retrying on next use", properties.getImage());
+        } catch (IOException e) {
+            log.warn("Could not resolve judge image {}: {}", properties.getImage(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private int docker(Duration timeout, String... args) {
+        List<String> command = new ArrayList<>(args.length + 1);
+        command.add("docker");
+        command.addAll(Arrays.asList(args));
+        try {
+            Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                return -1;
+            }
+            return process.exitValue();
+        } catch (IOException e) {
+            log.debug("docker {} failed: {}", args[0], e.getMessage());
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.model.JudgeJob;
+import com.shodh.backend.model.JudgeLane;
+
+import java.util.*;
+
+/**
+ * Decides which queued job a judge worker should take next.
+ *
+ * <p>Lanes are interleaved by smooth weighted round-robin, so with weights 8 and 1 the lower
+ * lane still gets one job in nine. Within a lane, jobs are ordered by start-time fair
+ * queuing over users and then contests: every job judged for a user advances that user's
+ * tag by one, and a user who was idle starts at the current virtual time instead of
+ * catching up. A user with fifty queued submissions therefore gets one turn for every turn
+ * of each other waiting user, rather than the first fifty.
+ */
+public class FairShareSelector {
+    // Tags at or below the virtual time carry no information and are dropped beyond this many
+    private static final int MAX_TRACKED = 10_000;
+
+    private final Map<JudgeLane, Integer> weights;
+    private final Map<JudgeLane, Long> credits = new EnumMap<>(JudgeLane.class);
+    private final Map<Long, Long> userTags = new HashMap<>();
+    private final Map<Long, Long> contestTags = new HashMap<>();
+    private long virtualTime;
+    private Set<JudgeLane> lastLanes = EnumSet.noneOf(JudgeLane.class);
+
+    public FairShareSelector(Map<JudgeLane, Integer> weights) {
+        this.weights = new EnumMap<>(JudgeLane.class);
+        for (JudgeLane lane : JudgeLane.values()) {
+            this.weights.put(lane, Math.max(1, weights.getOrDefault(lane, 1)));
+            credits.put(lane, 0L);
+        }
+    }
+
+    /**
+     * Returns the candidates in the order they should be tried: the lane that is due first,
+     * then the remaining lanes by priority, each ordered fairly across users and contests.
+     */
+    public synchronized List<JudgeJob> order(Collection<JudgeJob> candidates) {
+        Map<JudgeLane, List<JudgeJob>> byLane = new EnumMap<>(JudgeLane.class);
+        for (JudgeJob job : candidates) {
+            byLane.computeIfAbsent(laneOf(job), lane -> new ArrayList<>()).add(job);
+        }
+        lastLanes = EnumSet.noneOf(JudgeLane.class);
+        lastLanes.addAll(byLane.keySet());
+
+        JudgeLane due = null;
+        long best = Long.MIN_VALUE;
+        for (JudgeLane lane : byLane.keySet()) {
+            long credit = credits.get(lane) + weights.get(lane);
+            if (credit > best) {
+                best = credit;
+                due = lane;
+            }
+        }
+
+        Comparator<JudgeJob> fairness = Comparator
+            .comparingLong((JudgeJob job) -> tag(userTags, job.getUserId()))
+            .thenComparingLong(job -> tag(contestTags, job.getContestId()))
+            .thenComparingLong(JudgeJob::getId);
+        List<JudgeJob> ordered = new ArrayList<>(candidates.size());
+        if (due != null) {
+            byLane.get(due).sort(fairness);
+            ordered.addAll(byLane.remove(due));
+        }
+        for (List<JudgeJob> jobs : byLane.values()) {
+            jobs.sort(fairness);
+            ordered.addAll(jobs);
+        }
+        return ordered;
+    }
+
+    /**
+     * Charges a job that a worker has claimed to its lane, user and contest.
+     */
+    public synchronized void served(JudgeJob job) {
+        JudgeLane lane = laneOf(job);
+        if (lastLanes.contains(lane)) {
+            long total = 0;
+            for (JudgeLane waiting : lastLanes) {
+                credits.merge(waiting, (long) weights.get(waiting), Long::sum);
+                total += weights.get(waiting);
+            }
+            credits.merge(lane, -total, Long::sum);
+        }
+
+        long start = tag(userTags, job.getUserId());
+        virtualTime = Math.max(virtualTime, start);
+        advance(userTags, job.getUserId());
+        advance(contestTags, job.getContestId());
+        if (userTags.size() > MAX_TRACKED || contestTags.size() > MAX_TRACKED) {
+            userTags.values().removeIf(tag -> tag <= virtualTime);
+            contestTags.values().removeIf(tag -> tag <= virtualTime);
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("virtualTime", virtualTime);
+        stats.put("trackedUsers", userTags.size());
+        stats.put("trackedContests", contestTags.size());
+        stats.put("laneWeights", new LinkedHashMap<>(weights));
+        return stats;
+    }
+
+    private void advance(Map<Long, Long> tags, Long key) {
+        if (key != null) {
+            tags.put(key, tag(tags, key) + 1);
+        }
+    }
+
+    private long tag(Map<Long, Long> tags, Long key) {
+        if (key == null) {
+            return virtualTime;
+        }
+        return Math.max(virtualTime, tags.getOrDefault(key, virtualTime));
+    }
+
+    private static JudgeLane laneOf(JudgeJob job) {
+        return job.getLane() == null ? JudgeLane.PRACTICE : job.getLane();
+    }
+}
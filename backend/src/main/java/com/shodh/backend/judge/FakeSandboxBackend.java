@@ -0,0 +1,236 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Executes nothing. Compile commands succeed instantly, and a measured run answers with
+ * {@link #setProgram program}(stdin), echoing the input by default. Usage is the fixed
+ * figures from {@code judge.sandbox.fake}, so the whole judge pipeline can be exercised
+ * deterministically on machines without Docker.
+ */
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.backend", havingValue = "fake")
+@Slf4j
+public class FakeSandboxBackend implements SandboxBackend {
+    private static final byte[] EMPTY = new byte[0];
+
+    private final JudgeProperties.Fake properties;
+    private volatile UnaryOperator<byte[]> program = UnaryOperator.identity();
+
+    public FakeSandboxBackend(JudgeProperties properties) {
+        this.properties = properties.getSandbox().getFake();
+    }
+
+    /**
+     * Replaces what every subsequent run prints for a given stdin.
+     */
+    public void setProgram(UnaryOperator<byte[]> program) {
+        this.program = program;
+    }
+
+    @Override
+    public String name() {
+        return "fake";
+    }
+
+    @Override
+    public void start(Sandbox sandbox) {
+    }
+
+    @Override
+    public void setMemoryLimit(Sandbox sandbox, int memoryLimitMb) {
+    }
+
+    @Override
+    public Process exec(Sandbox sandbox, String command) {
+        return new FakeProcess(stdin -> respond(sandbox.getWorkspace(), null, command, stdin));
+    }
+
+    @Override
+    public Process execMeasured(Sandbox sandbox, String command) {
+        return new FakeProcess(stdin -> respond(sandbox.getWorkspace(), sandbox.getReportDir(), command, stdin));
+    }
+
+    @Override
+    public void killProcesses(Sandbox sandbox) {
+        // Fake runs finish as soon as their stdin is closed
+    }
+
+    @Override
+    public boolean reset(Sandbox sandbox) {
+        try {
+            JudgeFiles.deleteContents(sandbox.getWorkspace());
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isHealthy(Sandbox sandbox) {
+        return true;
+    }
+
+    @Override
+    public void destroy(Sandbox sandbox) {
+    }
+
+    @Override
+    public Process run(String runId, Path workDir, String command, int memoryLimitMb) {
+        return new FakeProcess(stdin -> respond(workDir, null, command, stdin));
+    }
+
+    @Override
+    public Process runMeasured(String runId, Path workDir, Path reportDir, String command, int memoryLimitMb) {
+        return new FakeProcess(stdin -> respond(workDir, reportDir, command, stdin));
+    }
+
+    @Override
+    public void kill(String runId) {
+    }
+
+    /**
+     * @param reportDir null unless started as a measured run
+     */
+    private Response respond(Path workDir, Path reportDir, String command, byte[] stdin) {
+        String[] args = command.split(" ");
+        try {
+            if (command.startsWith(ResourceUsage.INVOCATION + " ")) {
+                // sh measure.sh <report-name> <cpu> <wall> <run>
+                Files.writeString(reportDir.resolve(args[2]), usageLine());
+                return new Response(0, program.apply(stdin));
+            }
+            if (command.startsWith(BatchRunner.INVOCATION + " ")) {
+                // sh batch-runner.sh <cpu> <wall> <count> ...
+                return new Response(0, batchFrames(workDir, Integer.parseInt(args[4])));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Fake sandbox could not answer '{}': {}", command, e.getMessage());
+            return new Response(1, EMPTY);
+        }
+        // Compilers and anything else succeed silently
+        return new Response(0, EMPTY);
+    }
+
+    private byte[] batchFrames(Path workDir, int count) throws IOException {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) {
+            byte[] output = program.apply(Files.readAllBytes(workDir.resolve("batch").resolve("in").resolve(String.valueOf(i))));
+            String header = "@@ " + i + " " + usageLine().trim() + " " + output.length + " 0\n";
+            frames.write(header.getBytes(StandardCharsets.US_ASCII));
+            frames.write(output);
+        }
+        return frames.toByteArray();
+    }
+
+    private String usageLine() {
+        return "0 " + properties.getCpuTimeUs() + " " + properties.getPeakMemoryKb() + " 0 " + properties.getCpuTimeUs() / 1000 + "\n";
+    }
+
+    private record Response(int exitCode, byte[] stdout) {
+    }
+
+    /**
+     * A process that produces its whole response once stdin is closed.
+     */
+    private static final class FakeProcess extends Process {
+        private final CompletableFuture<Response> response = new CompletableFuture<>();
+        private final OutputStream stdin;
+        private final InputStream stdout;
+
+        FakeProcess(Function<byte[], Response> responder) {
+            this.stdin = new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    if (!response.isDone()) {
+                        response.complete(responder.apply(toByteArray()));
+                    }
+                }
+            };
+            this.stdout = new InputStream() {
+                private ByteArrayInputStream delegate;
+
+                private ByteArrayInputStream delegate() {
+                    if (delegate == null) {
+                        delegate = new ByteArrayInputStream(response.join().stdout());
+                    }
+                    return delegate;
+                }
+
+                @Override
+                public int read() {
+                    return delegate().read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return delegate().read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return stdin;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() {
+            return response.join().exitCode();
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            try {
+                response.get(timeout, unit);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                return true;
+            }
+        }
+
+        @Override
+        public int exitValue() {
+            if (!response.isDone()) {
+                throw new IllegalThreadStateException("Fake process has not exited");
+            }
+            return response.join().exitCode();
+        }
+
+        @Override
+        public void destroy() {
+            response.complete(new Response(137, EMPTY));
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !response.isDone();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how many submissions are judged at once and adapts the cap to the host (AIMD).
+ *
+ * <p>Every adjustment interval the limiter looks at three signals: run-time inflation (wall
+ * time over CPU time of measured runs, relative to the lowest level recently seen; programs
+ * waiting for a core take longer in wall time but not in CPU time), CPU pressure from PSI,
+ * and how long claimed jobs had been queued. If runs are inflated or the CPU is under
+ * pressure the limit is cut multiplicatively; if jobs are waiting and every permit is in use
+ * it grows by one. Outside those cases it is left alone.
+ */
+@Component
+@Slf4j
+public class JudgeConcurrencyLimiter {
+    // Runs shorter than this are dominated by process start-up and say little about contention
+    private static final long MIN_SAMPLE_CPU_US = 20_000;
+
+    private final JudgeProperties.Concurrency properties;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+    private int inFlight;
+
+    // Samples of the current interval
+    private double inflationSum;
+    private int inflationSamples;
+    private long queueLatencySumMs;
+    private int queueLatencySamples;
+    private int peakInFlight;
+
+    private double baselineInflation;
+    private double lastInflation;
+    private double lastPressure;
+    private long lastQueueLatencyMs;
+    private final AtomicLong increases = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+
+    public JudgeConcurrencyLimiter(JudgeProperties properties) {
+        this.properties = properties.getConcurrency();
+        int workers = Math.max(1, properties.getQueue().getWorkers());
+        if (this.properties.isAdaptive()) {
+            int max = this.properties.getMaxLimit() > 0 ? this.properties.getMaxLimit() : Runtime.getRuntime().availableProcessors();
+            this.maxLimit = Math.max(1, max);
+            this.minLimit = Math.max(1, Math.min(this.properties.getMinLimit(), maxLimit));
+            this.limit = Math.max(minLimit, Math.min(workers, maxLimit));
+        } else {
+            this.maxLimit = workers;
+            this.minLimit = workers;
+            this.limit = workers;
+        }
+    }
+
+    /**
+     * Upper bound of the limit; the dispatcher starts this many worker threads.
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Takes a permit if fewer than {@link #getLimit()} submissions are being judged.
+     * Every successful call must be paired with {@link #release()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit) {
+            return false;
+        }
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+        return true;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * Feeds a measured run into the inflation signal.
+     */
+    public synchronized void recordRun(ResourceUsage usage) {
+        if (usage == null || usage.cpuTimeUs() < MIN_SAMPLE_CPU_US || usage.wallTimeMs() <= 0) {
+            return;
+        }
+        inflationSum += usage.wallTimeMs() * 1000.0 / usage.cpuTimeUs();
+        inflationSamples++;
+    }
+
+    /**
+     * Feeds how long a job waited in the queue before a worker claimed it.
+     */
+    public synchronized void recordQueueLatency(long latencyMs) {
+        queueLatencySumMs += Math.max(0, latencyMs);
+        queueLatencySamples++;
+    }
+
+    @Scheduled(fixedDelayString = "${judge.concurrency.adjust-interval:5s}")
+    public void adjust() {
+        if (!properties.isAdaptive()) {
+            return;
+        }
+        adjust(readCpuPressure());
+    }
+
+    synchronized void adjust(double cpuPressure) {
+        double inflation = inflationSamples == 0 ? Double.NaN : inflationSum / inflationSamples;
+        long queueLatencyMs = queueLatencySamples == 0 ? 0 : queueLatencySumMs / queueLatencySamples;
+        boolean saturated = peakInFlight >= limit;
+        inflationSum = 0;
+        inflationSamples = 0;
+        queueLatencySumMs = 0;
+        queueLatencySamples = 0;
+        peakInFlight = inFlight;
+
+        boolean inflated = false;
+        if (!Double.isNaN(inflation)) {
+            // The baseline follows the lowest inflation seen and drifts up slowly, so a permanent
+            // change of workload is eventually accepted as the new normal
+            baselineInflation = baselineInflation == 0 || inflation < baselineInflation
+                ? inflation
+                : baselineInflation + (inflation - baselineInflation) * 0.05;
+            inflated = inflation > baselineInflation * properties.getInflationTolerance();
+            lastInflation = inflation;
+        }
+        lastPressure = cpuPressure;
+        lastQueueLatencyMs = queueLatencyMs;
+
+        int previous = limit;
+        if (inflated || cpuPressure > properties.getMaxCpuPressure()) {
+            limit = Math.max(minLimit, (int) (limit * properties.getBackoffRatio()));
+        } else if (saturated && queueLatencyMs > properties.getTargetQueueLatency().toMillis()) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        if (limit > previous) {
+            increases.incrementAndGet();
+        } else if (limit < previous) {
+            decreases.incrementAndGet();
+            log.info("Judge concurrency limit lowered {} -> {} (inflation {}, CPU pressure {}%)",
+                previous, limit, String.format("%.2f", inflation), cpuPressure);
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("adaptive", properties.isAdaptive());
+        stats.put("limit", limit);
+        stats.put("minLimit", minLimit);
+        stats.put("maxLimit", maxLimit);
+        stats.put("inFlight", inFlight);
+        stats.put("inflation", Math.round(lastInflation * 100) / 100.0);
+        stats.put("baselineInflation", Math.round(baselineInflation * 100) / 100.0);
+        stats.put("cpuPressure", lastPressure);
+        stats.put("queueLatencyMs", lastQueueLatencyMs);
+        stats.put("increases", increases.get());
+        stats.put("decreases", decreases.get());
+        return stats;
+    }
+
+    /**
+     * "some avg10" of the configured PSI file: the share of the last ten seconds in which at
+     * least one task waited for a CPU. 0 when PSI is not available.
+     */
+    private double readCpuPressure() {
+        try {
+            for (String line : Files.readAllLines(Path.of(properties.getPressureFile()))) {
+                if (line.startsWith("some ")) {
+                    for (String field : line.split(" ")) {
+                        if (field.startsWith("avg10=")) {
+                            return Double.parseDouble(field.substring(6));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // No PSI (old kernel, psi=0 or not mounted): rely on the other signals
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.shodh.backend.judge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * File helpers shared by the judge pipeline.
+ */
+public final class JudgeFiles {
+    private JudgeFiles() {
+    }
+
+    /**
+     * Copies the contents of {@code source} into {@code target}, keeping file attributes
+     * so compiled binaries stay executable.
+     */
+    public static void copyContents(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(path, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a classpath resource (e.g. one of the scripts under /judge) to {@code target}.
+     */
+    public static void copyResource(String resource, Path target) throws IOException {
+        try (InputStream in = JudgeFiles.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing classpath resource " + resource);
+            }
+            Files.write(target, in.readAllBytes());
+        }
+    }
+
+    /**
+     * Creates {@code directory} accessible to the judge's own user only, e.g. for usage reports.
+     */
+    public static Path createPrivateDirectory(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try {
+            Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+        } catch (UnsupportedOperationException ignored) {
+            // Non-POSIX host, rely on the default permissions
+        }
+        return directory;
+    }
+
+    /**
+     * Empties {@code directory} but keeps the directory itself.
+     */
+    public static void deleteContents(Path directory) throws IOException {
+        try (Stream<Path> children = Files.list(directory)) {
+            for (Path child : (Iterable<Path>) children::iterator) {
+                deleteRecursively(child);
+            }
+        }
+    }
+
+    public static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            // Delete files before directories
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
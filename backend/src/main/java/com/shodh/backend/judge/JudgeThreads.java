@@ -0,0 +1,66 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where judge orchestration runs. With {@code judge.virtual-threads} the queue workers and the
+ * threads pumping program stdin/stdout are virtual threads, which cost next to nothing while
+ * blocked on a process or a pipe; otherwise they are ordinary daemon threads.
+ */
+@Component
+public class JudgeThreads {
+    private final boolean virtual;
+    private final ExecutorService io;
+
+    @Autowired
+    public JudgeThreads(JudgeProperties properties) {
+        this(properties.isVirtualThreads());
+    }
+
+    public JudgeThreads(boolean virtual) {
+        this.virtual = virtual;
+        this.io = newExecutor("Judge-IO-");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Executor for {@link StreamPump}s; every task blocks on a pipe for the lifetime of a run.
+     */
+    public ExecutorService io() {
+        return io;
+    }
+
+    /**
+     * An unbounded executor for tasks that mostly block, with threads named {@code prefix} and a
+     * number. The caller shuts it down.
+     */
+    public ExecutorService newExecutor(String prefix) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable ->
+            Thread.ofPlatform().name(prefix + counter.incrementAndGet()).daemon().unstarted(runnable));
+    }
+
+    public Thread newThread(String name, Runnable task) {
+        return virtual
+            ? Thread.ofVirtual().name(name).unstarted(task)
+            : Thread.ofPlatform().name(name).daemon().unstarted(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        io.shutdownNow();
+    }
+}
@@ -0,0 +1,429 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs submissions as plain child processes of the judge on a Linux host, with no container
+ * start-up cost. Each sandbox gets its own cgroup v2 group under {@code cgroup-root} (memory,
+ * pids and one CPU), rlimits on processes, address space, file size, open files and core
+ * dumps, and fresh namespaces through {@code unshare(1)}: no network, no view of other
+ * processes, and a private mount namespace in which the judge's temp dir, sandbox
+ * workspaces, test data and artifact cache are covered by empty tmpfs mounts, with only the
+ * sandbox's own workspace bound back in place. The mounts are made as root of an outer user
+ * namespace and the program runs in a nested one without privileges, so it cannot undo them.
+ * Measured runs keep the sandbox's report dir visible to {@code measure.sh} only; the program
+ * is started in namespaces of its own where that dir is covered too.
+ *
+ * <p>Without a cgroup root or without namespaces the backend refuses to start unless
+ * {@code allow-unconfined} is set. Meant for dedicated judge nodes: programs run under the
+ * judge's own uid.
+ */
+@Component
+@ConditionalOnProperty(name = "judge.sandbox.backend", havingValue = "local")
+@Slf4j
+public class LocalProcessSandboxBackend implements SandboxBackend {
+    // measure.sh falls back to rusage when it cannot find cgroup accounting here
+    private static final String NO_CGROUP = "/nonexistent";
+    // The host's compilers and runtimes; their combined version output identifies the toolchain
+    // Written into the report dir; starts the program in namespaces of its own, where the dir is covered
+    private static final String CONFINE_SCRIPT = "confine.sh";
+    private static final String TOOLCHAIN_VERSIONS = "javac -version; java -version; g++ --version; python3 --version; node --version";
+
+    private final JudgeProperties.Local properties;
+    private final Path cgroupRoot;
+    private final List<Path> hiddenDirs;
+    private final Map<String, LocalSandbox> sandboxes = new ConcurrentHashMap<>();
+    private volatile String toolchainId;
+
+    public LocalProcessSandboxBackend(JudgeProperties properties) {
+        this.properties = properties.getSandbox().getLocal();
+        this.cgroupRoot = prepareCgroupRoot(this.properties.getCgroupRoot());
+        this.hiddenDirs = hiddenDirs(properties);
+        checkConfinement();
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public String toolchainId() {
+        String id = toolchainId;
+        if (id == null) {
+            id = "local:" + readToolchainVersions();
+            toolchainId = id;
+        }
+        return id;
+    }
+
+    @Override
+    public void start(Sandbox sandbox) {
+        sandboxes.put(sandbox.getName(), new LocalSandbox(createCgroup(sandbox.getName(), sandbox.getMemoryLimitMb())));
+    }
+
+    @Override
+    public void setMemoryLimit(Sandbox sandbox, int memoryLimitMb) {
+        Path cgroup = state(sandbox.getName()).cgroup;
+        if (cgroup != null) {
+            writeControl(cgroup, "memory.max", String.valueOf(memoryLimitMb * 1024L * 1024L));
+        }
+    }
+
+    @Override
+    public Process exec(Sandbox sandbox, String command) throws IOException {
+        return launch(sandbox, command, null);
+    }
+
+    @Override
+    public Process execMeasured(Sandbox sandbox, String command) throws IOException {
+        Path reportDir = sandbox.getReportDir().toAbsolutePath();
+        if (reportDir.toString().chars().anyMatch(Character::isWhitespace)) {
+            // measure.sh splits JUDGE_CONFINE into words
+            throw new IllegalStateException("Report dir must not contain whitespace: " + reportDir);
+        }
+        if (properties.isUnshare()) {
+            // Runs as root of the outer namespace: covers the report dir before dropping into the program's namespace
+            Files.writeString(reportDir.resolve(CONFINE_SCRIPT),
+                "mount -t tmpfs -o size=4k,mode=0555 tmpfs \"$JUDGE_REPORT_DIR\" || exit 125\n"
+                    + "exec unshare --user --mount " + rlimits(true) + "sh -c \"$1\"\n");
+        }
+        return launch(sandbox, command, reportDir);
+    }
+
+    private Process launch(Sandbox sandbox, String command, Path reportDir) throws IOException {
+        LocalSandbox state = state(sandbox.getName());
+        StringBuilder script = new StringBuilder();
+        if (state.cgroup != null) {
+            // Join the sandbox group before exec so the program and all its children are accounted there
+            script.append("echo $$ > ").append(quote(state.cgroup.resolve("cgroup.procs").toString())).append(" || exit 125; ");
+        }
+        String confine;
+        if (properties.isUnshare()) {
+            StringBuilder isolated = new StringBuilder();
+            if (reportDir != null) {
+                // Hold on to the report dir; the tmpfs mounts below cover it
+                isolated.append("exec 3< ").append(quote(reportDir.toString())).append(" || exit 125; ");
+            }
+            for (Path dir : hiddenDirs) {
+                isolated.append("if [ -d ").append(quote(dir.toString())).append(" ]; then mount -t tmpfs -o mode=0755,size=")
+                    .append(properties.getScratchSizeMb()).append("m tmpfs ").append(quote(dir.toString())).append(" || exit 125; fi; ");
+            }
+            // The working directory still refers to the covered workspace; put it back at its own path
+            String workspace = quote(sandbox.getWorkspace().toAbsolutePath().toString());
+            isolated.append("mkdir -p ").append(workspace).append(" && mount --no-canonicalize --bind . ").append(workspace)
+                .append(" || exit 125; ");
+            if (reportDir != null) {
+                // measure.sh runs here and reports through the dir; the program gets its own namespaces and never sees it
+                String report = quote(reportDir.toString());
+                isolated.append("mkdir -p ").append(report).append(" && mount --no-canonicalize --bind /proc/self/fd/3 ").append(report)
+                    .append(" || exit 125; exec 3<&-; exec sh -c ").append(quote(command));
+                confine = "unshare --user --map-root-user --mount --pid --fork --kill-child --mount-proc sh "
+                    + reportDir.resolve(CONFINE_SCRIPT);
+            } else {
+                // Nested user namespace: drops the privileges the mounts needed and locks the mounts in place
+                isolated.append("exec unshare --user --mount ").append(rlimits(true)).append("sh -c ").append(quote(command));
+                confine = null;
+            }
+            script.append("exec unshare --user --map-root-user --mount --net --ipc --uts --pid --fork --kill-child --mount-proc sh -c ")
+                .append(quote(isolated.toString()));
+        } else if (reportDir != null) {
+            script.append("exec sh -c ").append(quote(command));
+            confine = rlimits(false) + "sh -c";
+        } else {
+            script.append("exec ").append(rlimits(false)).append("sh -c ").append(quote(command));
+            confine = null;
+        }
+
+        ProcessBuilder builder = new ProcessBuilder("sh", "-c", script.toString())
+            .directory(sandbox.getWorkspace().toFile())
+            .redirectErrorStream(false);
+        Map<String, String> env = builder.environment();
+        String path = env.getOrDefault("PATH", "/usr/local/bin:/usr/bin:/bin");
+        env.clear();
+        env.put("PATH", path);
+        env.put("HOME", sandbox.getWorkspace().toAbsolutePath().toString());
+        env.put("LANG", "C.UTF-8");
+        env.put("JUDGE_CGROUP", state.cgroup != null ? state.cgroup.toString() : NO_CGROUP);
+        if (reportDir != null) {
+            env.put("JUDGE_REPORT_DIR", reportDir.toString());
+            env.put("JUDGE_CONFINE", confine);
+        }
+
+        Process process = builder.start();
+        state.processes.add(process);
+        process.onExit().thenRun(() -> state.processes.remove(process));
+        return process;
+    }
+
+    @Override
+    public void killProcesses(Sandbox sandbox) {
+        LocalSandbox state = sandboxes.get(sandbox.getName());
+        if (state != null) {
+            killAll(state);
+        }
+    }
+
+    @Override
+    public boolean reset(Sandbox sandbox) {
+        killProcesses(sandbox);
+        try {
+            JudgeFiles.deleteContents(sandbox.getWorkspace());
+            if (Files.isDirectory(sandbox.getReportDir())) {
+                JudgeFiles.deleteContents(sandbox.getReportDir());
+            }
+            return true;
+        } catch (IOException e) {
+            log.debug("Could not wipe workspace of {}: {}", sandbox.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isHealthy(Sandbox sandbox) {
+        LocalSandbox state = sandboxes.get(sandbox.getName());
+        return state != null && Files.isDirectory(sandbox.getWorkspace())
+            && (state.cgroup == null || Files.isDirectory(state.cgroup));
+    }
+
+    @Override
+    public void destroy(Sandbox sandbox) {
+        LocalSandbox state = sandboxes.remove(sandbox.getName());
+        if (state != null) {
+            killAll(state);
+            removeCgroup(state.cgroup);
+        }
+    }
+
+    @Override
+    public void removeOrphans() {
+        if (cgroupRoot == null) {
+            return;
+        }
+        try (Stream<Path> groups = Files.list(cgroupRoot)) {
+            groups.filter(Files::isDirectory)
+                .filter(group -> !sandboxes.containsKey(group.getFileName().toString()))
+                .forEach(this::removeCgroup);
+        } catch (IOException e) {
+            log.warn("Could not list orphaned sandbox cgroups: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Process run(String runId, Path workDir, String command, int memoryLimitMb) throws IOException {
+        return runOnce(new Sandbox(runId, "", workDir, memoryLimitMb), command, false);
+    }
+
+    @Override
+    public Process runMeasured(String runId, Path workDir, Path reportDir, String command, int memoryLimitMb) throws IOException {
+        return runOnce(new Sandbox(runId, "", workDir, reportDir, memoryLimitMb), command, true);
+    }
+
+    private Process runOnce(Sandbox sandbox, String command, boolean measured) throws IOException {
+        start(sandbox);
+        try {
+            Process process = measured ? execMeasured(sandbox, command) : exec(sandbox, command);
+            // Anything the program left running dies with the throwaway group
+            process.onExit().thenRun(() -> destroy(sandbox));
+            return process;
+        } catch (IOException e) {
+            destroy(sandbox);
+            throw e;
+        }
+    }
+
+    @Override
+    public void kill(String runId) {
+        LocalSandbox state = sandboxes.get(runId);
+        if (state != null) {
+            killAll(state);
+        }
+    }
+
+    private String rlimits(boolean ownUserNamespace) {
+        StringBuilder limits = new StringBuilder("prlimit --core=0")
+            .append(" --nofile=").append(properties.getMaxOpenFiles())
+            .append(" --as=").append(properties.getMaxAddressSpaceMb() * 1024L * 1024L)
+            .append(" --fsize=").append(properties.getMaxFileSizeMb() * 1024L * 1024L);
+        if (ownUserNamespace) {
+            // Counted per user namespace; outside one it would include every thread of the judge itself
+            limits.append(" --nproc=").append(properties.getMaxProcesses());
+        }
+        return limits.append(' ').toString();
+    }
+
+    private void checkConfinement() {
+        List<String> gaps = new ArrayList<>();
+        if (cgroupRoot == null) {
+            gaps.add("no cgroup root, so no memory, pids or CPU limits");
+        }
+        if (!properties.isUnshare()) {
+            gaps.add("no namespaces, so programs can read the judge's files including expected outputs, forge their usage reports,"
+                + " and have no process limit");
+        }
+        if (gaps.isEmpty()) {
+            return;
+        }
+        if (!properties.isAllowUnconfined()) {
+            throw new IllegalStateException("Local sandbox backend is not confined: " + String.join("; ", gaps)
+                + ". Set judge.sandbox.local.cgroup-root and judge.sandbox.local.unshare=true,"
+                + " or judge.sandbox.local.allow-unconfined=true to run anyway");
+        }
+        log.warn("*** Local sandbox backend runs submissions UNCONFINED: {}. Do not use this on a judge that serves real contests ***",
+            String.join("; ", gaps));
+    }
+
+    // Outermost directories only; the tmpfs over a parent already covers everything below it
+    private static List<Path> hiddenDirs(JudgeProperties properties) {
+        List<Path> dirs = Stream.of(System.getProperty("java.io.tmpdir"), properties.getWorkspaceRoot(),
+                properties.getTestData().getDir(), properties.getArtifactCache().getDir())
+            .filter(dir -> !dir.isBlank())
+            .map(dir -> Paths.get(dir).toAbsolutePath().normalize())
+            .sorted()
+            .toList();
+        List<Path> hidden = new ArrayList<>();
+        for (Path dir : dirs) {
+            if (hidden.stream().noneMatch(dir::startsWith)) {
+                hidden.add(dir);
+            }
+        }
+        return hidden;
+    }
+
+    private LocalSandbox state(String name) {
+        LocalSandbox state = sandboxes.get(name);
+        if (state == null) {
+            throw new IllegalStateException("Unknown sandbox: " + name);
+        }
+        return state;
+    }
+
+    private void killAll(LocalSandbox state) {
+        if (state.cgroup != null) {
+            tryWriteControl(state.cgroup, "cgroup.kill", "1");
+        }
+        for (Process process : state.processes) {
+            // Children first, so none of them is re-parented out of reach
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    private Path createCgroup(String name, int memoryLimitMb) {
+        if (cgroupRoot == null) {
+            return null;
+        }
+        Path cgroup = cgroupRoot.resolve(name);
+        try {
+            Files.createDirectories(cgroup);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create cgroup " + cgroup, e);
+        }
+        try {
+            writeControl(cgroup, "memory.max", String.valueOf(memoryLimitMb * 1024L * 1024L));
+            writeControl(cgroup, "memory.swap.max", "0");
+            writeControl(cgroup, "pids.max", String.valueOf(properties.getMaxProcesses()));
+            writeControl(cgroup, "cpu.max", "100000 100000");
+        } catch (IllegalStateException e) {
+            // Never run a program in a group that is missing one of its limits
+            removeCgroup(cgroup);
+            throw e;
+        }
+        return cgroup;
+    }
+
+    private void removeCgroup(Path cgroup) {
+        if (cgroup == null) {
+            return;
+        }
+        tryWriteControl(cgroup, "cgroup.kill", "1");
+        try {
+            // rmdir on cgroupfs; fails while processes are still being torn down
+            Files.deleteIfExists(cgroup);
+        } catch (IOException e) {
+            log.debug("Could not remove cgroup {}: {}", cgroup, e.getMessage());
+        }
+    }
+
+    private static Path prepareCgroupRoot(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return null;
+        }
+        Path root = Paths.get(configured);
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new IllegalStateException("cgroup root " + root + " is not usable", e);
+        }
+        // Without these controllers the sandbox groups would have no limits to set
+        writeControl(root, "cgroup.subtree_control", "+cpu +memory +pids");
+        return root;
+    }
+
+    private static void writeControl(Path cgroup, String file, String value) {
+        try {
+            // Never creates the file: outside cgroupfs that would look like a limit that was set
+            Files.writeString(cgroup.resolve(file), value, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write " + value + " to " + cgroup.resolve(file)
+                + "; is the controller delegated to " + cgroup.getParent() + "?", e);
+        }
+    }
+
+    private static void tryWriteControl(Path cgroup, String file, String value) {
+        try {
+            Files.writeString(cgroup.resolve(file), value, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            // Best effort while tearing down; the group may already be gone
+            log.debug("Could not write {} to {}/{}: {}", value, cgroup, file, e.getMessage());
+        }
+    }
+
+    private static String readToolchainVersions() {
+        try {
+            Process process = new ProcessBuilder("sh", "-c", TOOLCHAIN_VERSIONS)
+                .redirectErrorStream(true)
+                .start();
+            byte[] output = process.getInputStream().readAllBytes();
+            process.waitFor(10, TimeUnit.SECONDS);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(output));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not read toolchain versions", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted reading toolchain versions", e);
+        }
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "'\\''") + "'";
+    }
+
+    private static class LocalSandbox {
+        final Path cgroup;
+        final Set<Process> processes = ConcurrentHashMap.newKeySet();
+
+        LocalSandbox(Path cgroup) {
+            this.cgroup = cgroup;
+        }
+    }
+}
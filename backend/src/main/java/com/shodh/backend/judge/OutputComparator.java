@@ -0,0 +1,92 @@
+package com.shodh.backend.judge;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental, whitespace-insensitive comparison of program output against the expected
+ * answer. Output bytes are pushed in as they arrive and matched token by token: runs of
+ * whitespace are equivalent to a single separator and leading/trailing whitespace is
+ * ignored. Once a mismatch is seen the comparator stops doing work. Nothing is allocated
+ * per token.
+ */
+public class OutputComparator {
+    private final ByteBuffer expected;
+    private final int limit;
+    private int position;
+    private boolean inToken;
+    private boolean mismatch;
+
+    public OutputComparator(ByteBuffer expected) {
+        this.expected = expected;
+        this.position = expected.position();
+        this.limit = expected.limit();
+    }
+
+    public OutputComparator(byte[] expected) {
+        this(ByteBuffer.wrap(expected));
+    }
+
+    /**
+     * @return false once the output is known not to match
+     */
+    public boolean feed(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length && !mismatch; i++) {
+            feed(buffer[i]);
+        }
+        return !mismatch;
+    }
+
+    public boolean isMismatch() {
+        return mismatch;
+    }
+
+    /**
+     * Call after the last output byte.
+     *
+     * @return true if the output matched the expected answer
+     */
+    public boolean finish() {
+        if (mismatch) {
+            return false;
+        }
+        if (inToken && position < limit && !isWhitespace(expected.get(position))) {
+            // Expected token is longer than the last output token
+            return false;
+        }
+        skipExpectedWhitespace();
+        return position == limit;
+    }
+
+    private void feed(byte b) {
+        if (isWhitespace(b)) {
+            if (inToken) {
+                // Output token ended, the expected token must end here too
+                if (position < limit && !isWhitespace(expected.get(position))) {
+                    mismatch = true;
+                }
+                inToken = false;
+            }
+            return;
+        }
+        if (!inToken) {
+            skipExpectedWhitespace();
+            inToken = true;
+        }
+        if (position >= limit || expected.get(position) != b) {
+            mismatch = true;
+            return;
+        }
+        position++;
+    }
+
+    private void skipExpectedWhitespace() {
+        while (position < limit && isWhitespace(expected.get(position))) {
+            position++;
+        }
+    }
+
+    // Same set as the regex \s used by the original whitespace normalization
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 0x0B || b == '\f';
+    }
+}
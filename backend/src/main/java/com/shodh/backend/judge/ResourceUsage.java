@@ -0,0 +1,82 @@
+package com.shodh.backend.judge;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * CPU time, peak memory and OOM kills of a single run, as recorded inside the sandbox by
+ * {@code measure.sh}. The script is installed in the sandbox's report directory and wraps
+ * the run command; its one-line report is read back from there, where the program cannot
+ * reach it.
+ */
+public record ResourceUsage(int exitCode, long cpuTimeUs, long peakMemoryKb, int oomKills, long wallTimeMs) {
+    public static final String SCRIPT = "measure.sh";
+    // Started through SandboxBackend#execMeasured, which sets the variable
+    public static final String INVOCATION = "sh \"$JUDGE_REPORT_DIR/" + SCRIPT + "\"";
+
+    // timeout(1) gave up on a program that was not using CPU (sleeping, blocked on input)
+    private static final int EXIT_WALL_TIMEOUT = 124;
+    // 128 + SIGXCPU from ulimit -t
+    private static final int EXIT_CPU_LIMIT = 152;
+
+    public static void install(Path directory) throws IOException {
+        JudgeFiles.copyResource("/judge/" + SCRIPT, directory.resolve(SCRIPT));
+    }
+
+    /**
+     * A report name that does not collide with concurrent runs sharing the same report directory.
+     */
+    public static String newReportName() {
+        return "usage-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public static String command(String reportName, String runCommand, int cpuLimitSeconds, int wallLimitSeconds) {
+        // One second of slack so an overrun is measured rather than cut off exactly at the limit
+        return INVOCATION + " " + reportName + " " + (cpuLimitSeconds + 1) + " " + wallLimitSeconds
+            + " '" + runCommand.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Reads and removes the report of a run that exited on its own. Such a run always leaves
+     * one, so a missing or malformed report means the judge's tooling failed.
+     *
+     * @throws IllegalStateException if there is no valid report
+     */
+    public static ResourceUsage read(Path reportFile) {
+        try {
+            ResourceUsage usage = parse(Files.readString(reportFile));
+            Files.deleteIfExists(reportFile);
+            return usage;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("No valid usage report at " + reportFile, e);
+        }
+    }
+
+    public static ResourceUsage parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Malformed resource usage: " + line);
+        }
+        return new ResourceUsage(
+            Integer.parseInt(parts[0]),
+            Long.parseLong(parts[1]),
+            Long.parseLong(parts[2]),
+            Integer.parseInt(parts[3]),
+            Long.parseLong(parts[4])
+        );
+    }
+
+    public long cpuTimeMs() {
+        return cpuTimeUs / 1000;
+    }
+
+    public boolean timeLimitExceeded(int timeLimitSeconds) {
+        return cpuTimeUs > timeLimitSeconds * 1_000_000L || exitCode == EXIT_CPU_LIMIT || exitCode == EXIT_WALL_TIMEOUT;
+    }
+
+    public boolean memoryLimitExceeded(int memoryLimitMb) {
+        return oomKills > 0 || peakMemoryKb > memoryLimitMb * 1024L;
+    }
+}
@@ -0,0 +1,58 @@
+package com.shodh.backend.judge;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * A pre-started judge container owned by {@link SandboxPool}. The host directory
+ * {@link #workspace} is bind-mounted at /workspace inside the container; {@link #reportDir}
+ * next to it receives usage reports and is never reachable by the program.
+ */
+@Getter
+public class Sandbox {
+    private final String name;
+    private final String language;
+    private final Path workspace;
+    private final Path reportDir;
+    private final Instant createdAt;
+    private Instant lastUsedAt;
+    private int uses;
+    private int memoryLimitMb;
+
+    Sandbox(String name, String language, Path workspace, int memoryLimitMb) {
+        this(name, language, workspace, reportDirOf(workspace), memoryLimitMb);
+    }
+
+    Sandbox(String name, String language, Path workspace, Path reportDir, int memoryLimitMb) {
+        this.name = name;
+        this.language = language;
+        this.workspace = workspace;
+        this.reportDir = reportDir;
+        this.memoryLimitMb = memoryLimitMb;
+        this.createdAt = Instant.now();
+        this.lastUsedAt = createdAt;
+    }
+
+    /**
+     * Where the usage reports of runs in {@code workspace} go: a sibling, so it is not under
+     * anything the program can write.
+     */
+    public static Path reportDirOf(Path workspace) {
+        return workspace.resolveSibling(workspace.getFileName() + ".reports");
+    }
+
+    void markLeased() {
+        uses++;
+        lastUsedAt = Instant.now();
+    }
+
+    void markReturned() {
+        lastUsedAt = Instant.now();
+    }
+
+    void setMemoryLimitMb(int memoryLimitMb) {
+        this.memoryLimitMb = memoryLimitMb;
+    }
+}
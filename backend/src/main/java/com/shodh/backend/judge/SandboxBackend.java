@@ -0,0 +1,83 @@
+package com.shodh.backend.judge;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Isolation mechanism behind the judge. A backend runs shell commands with the sandbox
+ * workspace as working directory, either in a long-lived {@link Sandbox} managed by
+ * {@link SandboxPool} or as a one-off run when pooling is disabled.
+ * The implementation is chosen with {@code judge.sandbox.backend}.
+ */
+public interface SandboxBackend {
+
+    String name();
+
+    /**
+     * Identifies the compilers and runtimes programs are built with, e.g. the judge image id.
+     * Part of every artifact cache key, so artifacts built by an older toolchain are not reused.
+     * Null while the toolchain cannot be identified, in which case nothing is cached.
+     */
+    default String toolchainId() {
+        return name();
+    }
+
+    /**
+     * Brings up the isolation for a new pooled sandbox. Throws if it cannot be started.
+     */
+    void start(Sandbox sandbox);
+
+    void setMemoryLimit(Sandbox sandbox, int memoryLimitMb);
+
+    /**
+     * Starts {@code sh -c command} inside the sandbox as the unprivileged judge user.
+     */
+    Process exec(Sandbox sandbox, String command) throws IOException;
+
+    /**
+     * Starts trusted judge tooling ({@code measure.sh}, {@code batch-runner.sh}) in the sandbox.
+     * Unlike {@link #exec}, the command gets {@code $JUDGE_REPORT_DIR}, which is the sandbox's
+     * {@link Sandbox#getReportDir report directory} on the host, and {@code $JUDGE_CONFINE},
+     * through which it starts the program. From there the program can neither write to the
+     * report directory nor reach the process writing it.
+     */
+    Process execMeasured(Sandbox sandbox, String command) throws IOException;
+
+    /**
+     * Kills everything started in the sandbox, leaving the sandbox itself usable.
+     */
+    void killProcesses(Sandbox sandbox);
+
+    /**
+     * Kills leftover processes and empties the workspace.
+     *
+     * @return false if the sandbox should be replaced instead of reused
+     */
+    boolean reset(Sandbox sandbox);
+
+    boolean isHealthy(Sandbox sandbox);
+
+    void destroy(Sandbox sandbox);
+
+    /**
+     * Cleans up sandboxes left behind by a previous run of the application.
+     */
+    default void removeOrphans() {
+    }
+
+    /**
+     * Runs {@code sh -c command} once in a throwaway sandbox with {@code workDir} as its workspace.
+     */
+    Process run(String runId, Path workDir, String command, int memoryLimitMb) throws IOException;
+
+    /**
+     * {@link #execMeasured} for a one-off run. The caller creates {@code reportDir} outside
+     * {@code workDir} and removes it afterwards.
+     */
+    Process runMeasured(String runId, Path workDir, Path reportDir, String command, int memoryLimitMb) throws IOException;
+
+    /**
+     * Kills a run started with {@link #run} or {@link #runMeasured}.
+     */
+    void kill(String runId);
+}
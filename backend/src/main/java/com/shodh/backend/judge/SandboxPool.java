@@ -0,0 +1,283 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps pre-started sandboxes per language so a run costs a {@code docker exec} (or a
+ * plain fork with the local backend) instead of a full {@code docker run}. Sandboxes are
+ * leased exclusively, wiped on return (processes killed, workspace emptied) and replaced
+ * after {@code maxUses} leases.
+ */
+@Component
+@Slf4j
+public class SandboxPool {
+    private final JudgeProperties properties;
+    private final SandboxBackend backend;
+    private final Map<String, LanguagePool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong recycled = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong unhealthy = new AtomicLong();
+    private final AtomicLong leaseTimeouts = new AtomicLong();
+    private volatile boolean orphansRemoved;
+
+    public SandboxPool(JudgeProperties properties, SandboxBackend backend) {
+        this.properties = properties;
+        this.backend = backend;
+        for (String language : properties.getPool().getLanguages()) {
+            pools.put(language, new LanguagePool(properties.getPool().getMaxSize()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getPool().isEnabled();
+    }
+
+    public Sandbox lease(String language, int memoryLimitMb) throws InterruptedException {
+        LanguagePool pool = pools.get(language);
+        if (pool == null) {
+            throw new IllegalArgumentException("No sandbox pool for language: " + language);
+        }
+        if (!pool.permits.tryAcquire(properties.getPool().getLeaseTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            leaseTimeouts.incrementAndGet();
+            throw new RuntimeException("Timed out waiting for a " + language + " sandbox");
+        }
+
+        Sandbox sandbox = null;
+        try {
+            // LIFO: the most recently returned container is the warmest one
+            sandbox = pool.idle.pollFirst();
+            if (sandbox == null) {
+                sandbox = createSandbox(language, pool);
+            }
+            if (sandbox.getMemoryLimitMb() != memoryLimitMb) {
+                applyMemoryLimit(sandbox, memoryLimitMb);
+            }
+            sandbox.markLeased();
+            pool.leased.incrementAndGet();
+            return sandbox;
+        } catch (RuntimeException e) {
+            if (sandbox != null) {
+                destroy(sandbox, pool);
+            }
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    public void release(Sandbox sandbox) {
+        LanguagePool pool = pools.get(sandbox.getLanguage());
+        pool.leased.decrementAndGet();
+        try {
+            if (sandbox.getUses() >= properties.getPool().getMaxUses() || !reset(sandbox)) {
+                destroy(sandbox, pool);
+                recycled.incrementAndGet();
+            } else {
+                sandbox.markReturned();
+                pool.idle.offerFirst(sandbox);
+            }
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    /**
+     * Starts {@code sh -c command} inside the sandbox as the unprivileged judge user.
+     */
+    public Process exec(Sandbox sandbox, String command) throws IOException {
+        return backend.exec(sandbox, command);
+    }
+
+    /**
+     * Starts judge tooling that measures a program; see {@link SandboxBackend#execMeasured}.
+     */
+    public Process execMeasured(Sandbox sandbox, String command) throws IOException {
+        return backend.execMeasured(sandbox, command);
+    }
+
+    /**
+     * Kills everything the judge user started inside the sandbox.
+     */
+    public void killProcesses(Sandbox sandbox) {
+        backend.killProcesses(sandbox);
+    }
+
+    @Scheduled(fixedDelayString = "${judge.pool.health-check-interval:30s}")
+    public void maintain() {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!orphansRemoved) {
+            backend.removeOrphans();
+            orphansRemoved = true;
+        }
+        Instant idleCutoff = Instant.now().minus(properties.getPool().getIdleTimeout());
+        pools.forEach((language, pool) -> {
+            evictIdle(pool, idleCutoff);
+            checkHealth(pool);
+            topUp(language, pool);
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> perLanguage = new LinkedHashMap<>();
+        int leased = 0;
+        int idle = 0;
+        for (Map.Entry<String, LanguagePool> entry : pools.entrySet()) {
+            LanguagePool pool = entry.getValue();
+            leased += pool.leased.get();
+            idle += pool.idle.size();
+            perLanguage.put(entry.getKey(), Map.of("leased", pool.leased.get(), "idle", pool.idle.size()));
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("backend", backend.name());
+        stats.put("leased", leased);
+        stats.put("idle", idle);
+        stats.put("created", created.get());
+        stats.put("recycled", recycled.get());
+        stats.put("evicted", evicted.get());
+        stats.put("unhealthy", unhealthy.get());
+        stats.put("leaseTimeouts", leaseTimeouts.get());
+        stats.put("languages", perLanguage);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pools.values().forEach(pool -> new ArrayList<>(pool.all).forEach(sandbox -> destroy(sandbox, pool)));
+    }
+
+    private void evictIdle(LanguagePool pool, Instant cutoff) {
+        int minIdle = properties.getPool().getMinIdle();
+        // Oldest returns sit at the tail of the deque
+        Iterator<Sandbox> it = pool.idle.descendingIterator();
+        while (it.hasNext() && pool.idle.size() > minIdle) {
+            Sandbox sandbox = it.next();
+            if (sandbox.getLastUsedAt().isBefore(cutoff) && pool.idle.remove(sandbox)) {
+                destroy(sandbox, pool);
+                evicted.incrementAndGet();
+            }
+        }
+    }
+
+    private void checkHealth(LanguagePool pool) {
+        for (Sandbox sandbox : new ArrayList<>(pool.idle)) {
+            // Hold a permit while the sandbox is out of the idle deque so the pool never exceeds maxSize
+            if (!pool.permits.tryAcquire()) {
+                return;
+            }
+            try {
+                if (!pool.idle.remove(sandbox)) {
+                    continue;
+                }
+                if (backend.isHealthy(sandbox)) {
+                    pool.idle.offerLast(sandbox);
+                } else {
+                    log.warn("Sandbox {} failed health check, replacing it", sandbox.getName());
+                    destroy(sandbox, pool);
+                    unhealthy.incrementAndGet();
+                }
+            } finally {
+                pool.permits.release();
+            }
+        }
+    }
+
+    private void topUp(String language, LanguagePool pool) {
+        int target = Math.min(properties.getPool().getMinIdle(), properties.getPool().getMaxSize());
+        while (pool.idle.size() + pool.leased.get() < target && pool.permits.tryAcquire()) {
+            try {
+                pool.idle.offerLast(createSandbox(language, pool));
+            } catch (RuntimeException e) {
+                log.warn("Could not pre-start {} sandbox: {}", language, e.getMessage());
+                return;
+            } finally {
+                pool.permits.release();
+            }
+        }
+    }
+
+    private Sandbox createSandbox(String language, LanguagePool pool) {
+        String name = "shodh-sandbox-" + language + "-" + UUID.randomUUID().toString().substring(0, 8);
+        int memoryMb = properties.getPool().getMemoryMb();
+        try {
+            Path workspace = Files.createDirectories(Paths.get(properties.getWorkspaceRoot(), name));
+            try {
+                // The judge user inside the container is not the owner of the host directory
+                Files.setPosixFilePermissions(workspace, PosixFilePermissions.fromString("rwxrwxrwx"));
+            } catch (UnsupportedOperationException ignored) {
+                // Non-POSIX host, rely on the default permissions
+            }
+
+            Sandbox sandbox = new Sandbox(name, language, workspace, memoryMb);
+            try {
+                JudgeFiles.createPrivateDirectory(sandbox.getReportDir());
+                backend.start(sandbox);
+            } catch (IOException | RuntimeException e) {
+                deleteWorkspace(workspace);
+                deleteWorkspace(sandbox.getReportDir());
+                throw e;
+            }
+            pool.all.add(sandbox);
+            created.incrementAndGet();
+            log.debug("Started sandbox {}", name);
+            return sandbox;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare sandbox workspace: " + e.getMessage(), e);
+        }
+    }
+
+    private void applyMemoryLimit(Sandbox sandbox, int memoryLimitMb) {
+        backend.setMemoryLimit(sandbox, memoryLimitMb);
+        sandbox.setMemoryLimitMb(memoryLimitMb);
+    }
+
+    private boolean reset(Sandbox sandbox) {
+        return backend.reset(sandbox);
+    }
+
+    private void destroy(Sandbox sandbox, LanguagePool pool) {
+        pool.all.remove(sandbox);
+        backend.destroy(sandbox);
+        deleteWorkspace(sandbox.getWorkspace());
+        deleteWorkspace(sandbox.getReportDir());
+    }
+
+    private void deleteWorkspace(Path workspace) {
+        try {
+            JudgeFiles.deleteRecursively(workspace);
+        } catch (IOException e) {
+            log.debug("Could not delete sandbox workspace {}: {}", workspace, e.getMessage());
+        }
+    }
+
+    private static class LanguagePool {
+        final Semaphore permits;
+        final ConcurrentLinkedDeque<Sandbox> idle = new ConcurrentLinkedDeque<>();
+        final Set<Sandbox> all = ConcurrentHashMap.newKeySet();
+        final AtomicInteger leased = new AtomicInteger();
+
+        LanguagePool(int maxSize) {
+            this.permits = new Semaphore(maxSize, true);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.shodh.backend.judge;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Drains one process stream on a background task while the process is still running,
+ * so a chatty program can never block on a full pipe. Every byte is counted against a
+ * hard limit, an optional {@link OutputComparator} sees the stream as it arrives, and only
+ * the first {@code retainBytes} are kept for display.
+ */
+@Slf4j
+public class StreamPump {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private final long limitBytes;
+    private final int retainBytes;
+    private final OutputComparator comparator;
+    private final Runnable onLimitExceeded;
+    private final Runnable onMismatch;
+    private final ByteArrayOutputStream retained;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile long totalBytes;
+    private volatile boolean limitExceeded;
+
+    private StreamPump(InputStream in, long limitBytes, int retainBytes, OutputComparator comparator,
+                       Runnable onLimitExceeded, Runnable onMismatch) {
+        this.in = in;
+        this.limitBytes = limitBytes;
+        this.retainBytes = retainBytes;
+        this.comparator = comparator;
+        this.onLimitExceeded = onLimitExceeded;
+        this.onMismatch = onMismatch;
+        this.retained = new ByteArrayOutputStream(Math.min(retainBytes, BUFFER_SIZE));
+    }
+
+    /**
+     * @param comparator      may be null
+     * @param onLimitExceeded invoked once when more than {@code limitBytes} arrive, may be null
+     * @param onMismatch      invoked once when the comparator reports a mismatch, may be null
+     */
+    public static StreamPump start(Executor io, InputStream in, long limitBytes, int retainBytes, OutputComparator comparator,
+                                   Runnable onLimitExceeded, Runnable onMismatch) {
+        StreamPump pump = new StreamPump(in, limitBytes, retainBytes, comparator, onLimitExceeded, onMismatch);
+        io.execute(pump::run);
+        return pump;
+    }
+
+    /**
+     * Writes {@code input} to the process stdin in the background and closes it. A program
+     * that exits without reading its input just makes the write fail, which is ignored.
+     *
+     * @param input may be null for an empty stdin
+     */
+    public static void feed(Executor io, OutputStream stdin, Source input) {
+        io.execute(() -> {
+            try (stdin) {
+                if (input != null) {
+                    input.writeTo(stdin);
+                }
+            } catch (IOException e) {
+                log.debug("Program closed stdin early: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits for end of stream; the process is normally dead by the time this is called.
+     */
+    public boolean await(long timeoutMs) throws InterruptedException {
+        return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isLimitExceeded() {
+        return limitExceeded;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * The retained prefix with the same line normalization the judge always applied.
+     */
+    public String text() {
+        synchronized (retained) {
+            return toText(retained.toByteArray());
+        }
+    }
+
+    public static String toText(byte[] bytes) {
+        return new String(bytes).lines().collect(Collectors.joining("\n")).trim();
+    }
+
+    private void run() {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        boolean comparing = comparator != null;
+        try (in) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                long total = totalBytes + n;
+                totalBytes = total;
+                if (limitExceeded) {
+                    // Keep draining until the killed process closes the pipe
+                    continue;
+                }
+                if (total > limitBytes) {
+                    limitExceeded = true;
+                    if (onLimitExceeded != null) {
+                        onLimitExceeded.run();
+                    }
+                    continue;
+                }
+                synchronized (retained) {
+                    int room = retainBytes - retained.size();
+                    if (room > 0) {
+                        retained.write(buffer, 0, Math.min(room, n));
+                    }
+                }
+                if (comparing && !comparator.feed(buffer, 0, n)) {
+                    comparing = false;
+                    if (onMismatch != null) {
+                        onMismatch.run();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // The stream is closed under us when the process is killed
+            log.debug("Stream pump stopped: {}", e.getMessage());
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Where a program's stdin comes from, e.g. a blob in the {@link TestDataStore}.
+     */
+    @FunctionalInterface
+    public interface Source {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,201 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Runs the test cases of every submission as individual tasks on one shared
+ * work-stealing pool, so idle workers pick up test cases from large submissions.
+ * As soon as a test fails, runs of later test cases of the same submission are
+ * cancelled; earlier ones keep running so the reported verdict is the same one a
+ * sequential run would have produced.
+ *
+ * <p>Every run holds one of {@code parallelism} sandbox slots, never more than a language's
+ * sandbox pool can lease at once. With
+ * {@code judge.virtual-threads} tasks get a virtual thread each instead of a pool
+ * worker, and the slots alone bound how many programs execute at once.
+ */
+@Component
+@Slf4j
+public class TestCaseScheduler {
+    private final ExecutorService executor;
+    // Null when tasks run on virtual threads
+    private final ForkJoinPool pool;
+    private final Semaphore slots;
+    private final int parallelism;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    public TestCaseScheduler(JudgeProperties properties) {
+        int parallelism = properties.getScheduler().getParallelism();
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        if (properties.getPool().isEnabled() && parallelism > properties.getPool().getMaxSize()) {
+            // Runs beyond the pool size would hold a slot only to wait out a lease timeout
+            parallelism = properties.getPool().getMaxSize();
+        }
+        this.parallelism = parallelism;
+        this.slots = new Semaphore(parallelism, true);
+        if (properties.isVirtualThreads()) {
+            this.pool = null;
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TestCase-", 1).factory());
+        } else {
+            this.pool = new ForkJoinPool(parallelism, namedFactory(), null, true);
+            this.executor = pool;
+        }
+    }
+
+    /**
+     * Runs {@code count} tasks in parallel and returns the results of tasks
+     * {@code 0..k}, where {@code k} is the lowest index whose result is a failure
+     * (or all results if nothing failed). A task that throws counts as a failure; if it is
+     * the first one in order, its exception is rethrown instead of returning results, since
+     * it says nothing about the program.
+     */
+    public <R> List<R> runInOrder(int count, BiFunction<Integer, CancellationToken, R> task, Predicate<R> failed)
+            throws InterruptedException {
+        CancellationToken[] tokens = new CancellationToken[count];
+        for (int i = 0; i < count; i++) {
+            tokens[i] = new CancellationToken();
+        }
+        Object[] results = new Object[count];
+        RuntimeException[] errors = new RuntimeException[count];
+        AtomicInteger firstFailure = new AtomicInteger(count);
+        CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            submitted.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    if (index > firstFailure.get() || tokens[index].isCancelled()) {
+                        cancelled.incrementAndGet();
+                        return;
+                    }
+                    R result;
+                    slots.acquire();
+                    try {
+                        if (tokens[index].isCancelled()) {
+                            cancelled.incrementAndGet();
+                            return;
+                        }
+                        result = task.apply(index, tokens[index]);
+                    } finally {
+                        slots.release();
+                    }
+                    if (tokens[index].isCancelled()) {
+                        // Killed mid-run, the result is meaningless
+                        cancelled.incrementAndGet();
+                        return;
+                    }
+                    results[index] = result;
+                    completed.incrementAndGet();
+                    if (failed.test(result)) {
+                        markFailed(index, firstFailure, tokens);
+                    }
+                } catch (InterruptedException e) {
+                    // Shutting down
+                    cancelled.incrementAndGet();
+                } catch (RuntimeException e) {
+                    log.debug("Test case task {} failed: {}", index, e.getMessage());
+                    errors[index] = e;
+                    markFailed(index, firstFailure, tokens);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            for (CancellationToken token : tokens) {
+                token.cancel();
+            }
+            throw e;
+        }
+
+        int end = Math.min(firstFailure.get() + 1, count);
+        if (end > 0 && errors[end - 1] != null) {
+            throw errors[end - 1];
+        }
+        List<R> ordered = new ArrayList<>(end);
+        for (int i = 0; i < end; i++) {
+            @SuppressWarnings("unchecked")
+            R result = (R) results[i];
+            ordered.add(result);
+        }
+        return ordered;
+    }
+
+    /**
+     * Runs {@code task} on the calling thread once a sandbox slot is free, e.g. a whole batch.
+     */
+    public <R> R runInSlot(SlotTask<R> task) throws IOException, InterruptedException {
+        slots.acquire();
+        try {
+            return task.run();
+        } finally {
+            slots.release();
+        }
+    }
+
+    @FunctionalInterface
+    public interface SlotTask<R> {
+        R run() throws IOException, InterruptedException;
+    }
+
+    private static void markFailed(int index, AtomicInteger firstFailure, CancellationToken[] tokens) {
+        int previous = firstFailure.getAndAccumulate(index, Math::min);
+        for (int j = index + 1; j < previous; j++) {
+            tokens[j].cancel();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parallelism", parallelism);
+        stats.put("virtualThreads", pool == null);
+        stats.put("busySlots", parallelism - slots.availablePermits());
+        stats.put("waitingForSlot", slots.getQueueLength());
+        if (pool != null) {
+            stats.put("activeWorkers", pool.getActiveThreadCount());
+            stats.put("queuedTasks", pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount());
+            stats.put("steals", pool.getStealCount());
+        }
+        stats.put("submittedTasks", submitted.get());
+        stats.put("completedTasks", completed.get());
+        stats.put("cancelledTasks", cancelled.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory namedFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return forkJoinPool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("TestCase-" + counter.incrementAndGet());
+            return thread;
+        };
+    }
+}
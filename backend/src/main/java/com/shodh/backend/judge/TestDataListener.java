@@ -0,0 +1,36 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.model.TestCase;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Moves the input and expected output set on a {@link TestCase} into the
+ * {@link TestDataStore} before the row is written, leaving only hashes and sizes in the database.
+ */
+@Component
+public class TestDataListener {
+    private final TestDataStore store;
+
+    public TestDataListener(TestDataStore store) {
+        this.store = store;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void storeData(TestCase testCase) {
+        if (testCase.getInput() != null) {
+            byte[] input = testCase.getInput().getBytes(StandardCharsets.UTF_8);
+            testCase.setInputHash(store.put(input));
+            testCase.setInputSize((long) input.length);
+        }
+        if (testCase.getExpectedOutput() != null) {
+            byte[] expected = testCase.getExpectedOutput().getBytes(StandardCharsets.UTF_8);
+            testCase.setExpectedOutputHash(store.put(expected));
+            testCase.setExpectedOutputSize((long) expected.length);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.model.Contest;
+import com.shodh.backend.model.TestCase;
+import com.shodh.backend.repository.ContestRepository;
+import com.shodh.backend.repository.TestCaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Warms the page cache with a contest's test data shortly before it starts, so the
+ * opening burst of submissions is not judged off a cold disk.
+ */
+@Component
+@Slf4j
+public class TestDataPrefetcher {
+    private final JudgeProperties properties;
+    private final ContestRepository contestRepository;
+    private final TestCaseRepository testCaseRepository;
+    private final TestDataStore store;
+    private final Set<Long> prefetchedContests = ConcurrentHashMap.newKeySet();
+
+    public TestDataPrefetcher(JudgeProperties properties, ContestRepository contestRepository,
+                              TestCaseRepository testCaseRepository, TestDataStore store) {
+        this.properties = properties;
+        this.contestRepository = contestRepository;
+        this.testCaseRepository = testCaseRepository;
+        this.store = store;
+    }
+
+    // The first pass waits one interval so it does not race start-up data loading
+    @Scheduled(fixedDelayString = "${judge.test-data.prefetch-interval:1m}", initialDelayString = "${judge.test-data.prefetch-interval:1m}")
+    public void prefetchUpcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plus(properties.getTestData().getPrefetchLead());
+        // Running contests are included so a restart mid-contest warms up too
+        for (Contest contest : contestRepository.findByStartTimeBeforeAndEndTimeAfter(horizon, now)) {
+            if (prefetchedContests.add(contest.getId())) {
+                prefetch(contest.getId());
+            }
+        }
+    }
+
+    public void prefetch(Long contestId) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (TestCase testCase : testCaseRepository.findByProblemContestId(contestId)) {
+            if (testCase.getInputHash() != null) {
+                hashes.add(testCase.getInputHash());
+            }
+            if (testCase.getExpectedOutputHash() != null) {
+                hashes.add(testCase.getExpectedOutputHash());
+            }
+        }
+        hashes.forEach(store::prefetch);
+        log.info("Prefetched {} test data files for contest {}", hashes.size(), contestId);
+    }
+}
@@ -0,0 +1,255 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store for test inputs and expected outputs. Each blob is written once
+ * under its SHA-256 ({@code <dir>/<first two hex chars>/<hash>}, gzip-compressed with a
+ * {@code .gz} suffix when {@code judge.test-data.compress} is on) and the database only
+ * keeps the hash and size. Judging streams inputs from disk into the program's stdin and
+ * compares output against a memory-mapped expected answer, so test data never has to sit
+ * on the heap.
+ */
+@Component
+@Slf4j
+public class TestDataStore {
+    private static final String COMPRESSED_SUFFIX = ".gz";
+    private static final Set<PosixFilePermission> READ_ONLY = PosixFilePermissions.fromString("r--r--r--");
+
+    private final JudgeProperties.TestData properties;
+    private final Path root;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong prefetchedFiles = new AtomicLong();
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+
+    public TestDataStore(JudgeProperties properties) {
+        this.properties = properties.getTestData();
+        if (this.properties.getDir() == null || this.properties.getDir().isBlank()) {
+            throw new IllegalStateException("judge.test-data.dir must be set to a persistent directory");
+        }
+        this.root = Paths.get(this.properties.getDir()).toAbsolutePath();
+        if (root.startsWith(Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath())) {
+            log.warn("Test data is stored under the temp directory ({}); it will not survive a temp clean-up", root);
+        }
+    }
+
+    /**
+     * Stores {@code data} unless an identical blob is already present.
+     *
+     * @return the blob's hash
+     */
+    public String put(byte[] data) {
+        String hash = hash(data);
+        if (locate(hash) != null) {
+            deduplicated.incrementAndGet();
+            return hash;
+        }
+        boolean compress = properties.isCompress();
+        Path target = blobPath(hash, compress);
+        try {
+            Files.createDirectories(target.getParent());
+            Path staging = Files.createTempFile(target.getParent(), ".staging-", "");
+            try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(staging)) : Files.newOutputStream(staging)) {
+                out.write(data);
+            }
+            makeReadOnly(staging);
+            try {
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Same content written concurrently
+                Files.deleteIfExists(staging);
+            }
+            stored.incrementAndGet();
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store test data " + hash, e);
+        }
+    }
+
+    public boolean contains(String hash) {
+        return locate(hash) != null;
+    }
+
+    /**
+     * Streams the blob into {@code out}, e.g. a program's stdin. Uncompressed blobs go through
+     * {@link FileChannel#transferTo} without being buffered as a whole.
+     */
+    public void writeTo(String hash, OutputStream out) throws IOException {
+        Path blob = require(hash);
+        if (isCompressed(blob)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+                in.transferTo(out);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * Places the blob at {@code target}, hard-linked when the file systems allow it. Either
+     * way the file is readable, but not writable, by the sandbox user.
+     */
+    public void copyTo(String hash, Path target) throws IOException {
+        Path blob = require(hash);
+        if (isCompressed(blob)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            makeReadOnly(target);
+            return;
+        }
+        try {
+            Files.deleteIfExists(target);
+            // Blobs stored before they were made world-readable
+            if (!READ_ONLY.equals(Files.getPosixFilePermissions(blob))) {
+                makeReadOnly(blob);
+            }
+            Files.createLink(target, blob);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING);
+            makeReadOnly(target);
+        }
+    }
+
+    /**
+     * Read-only view of the blob for comparison. Uncompressed blobs are memory-mapped.
+     */
+    public ByteBuffer map(String hash) throws IOException {
+        Path blob = require(hash);
+        if (isCompressed(blob)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+                return ByteBuffer.wrap(in.readAllBytes()).asReadOnlyBuffer();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public byte[] read(String hash) throws IOException {
+        Path blob = require(hash);
+        if (isCompressed(blob)) {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(blob))) {
+                return in.readAllBytes();
+            }
+        }
+        return Files.readAllBytes(blob);
+    }
+
+    /**
+     * Pulls the blob into the OS page cache so the first judge run does not wait on the disk.
+     */
+    public void prefetch(String hash) {
+        Path blob = locate(hash);
+        if (blob == null) {
+            log.warn("Cannot prefetch missing test data {}", hash);
+            return;
+        }
+        try {
+            if (isCompressed(blob)) {
+                try (InputStream in = Files.newInputStream(blob)) {
+                    prefetchedBytes.addAndGet(in.transferTo(OutputStream.nullOutputStream()));
+                }
+            } else {
+                try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+                    MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    mapped.load();
+                    prefetchedBytes.addAndGet(channel.size());
+                }
+            }
+            prefetchedFiles.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Failed to prefetch test data {}: {}", hash, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dir", root.toString());
+        stats.put("compress", properties.isCompress());
+        stats.put("stored", stored.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("prefetchedFiles", prefetchedFiles.get());
+        stats.put("prefetchedBytes", prefetchedBytes.get());
+        return stats;
+    }
+
+    public static String hash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Path require(String hash) throws IOException {
+        Path blob = locate(hash);
+        if (blob == null) {
+            throw new NoSuchFileException("Test data " + hash + " is missing from " + root);
+        }
+        return blob;
+    }
+
+    // Blobs keep the form they were written in, whatever judge.test-data.compress says now
+    private Path locate(String hash) {
+        Path raw = blobPath(hash, false);
+        if (Files.exists(raw)) {
+            return raw;
+        }
+        Path compressed = blobPath(hash, true);
+        return Files.exists(compressed) ? compressed : null;
+    }
+
+    private Path blobPath(String hash, boolean compressed) {
+        return root.resolve(hash.substring(0, 2)).resolve(compressed ? hash + COMPRESSED_SUFFIX : hash);
+    }
+
+    /**
+     * A hard link shares the blob's owner and mode, and sandboxed programs run as another
+     * user: readable by everyone, writable through no link.
+     */
+    private static void makeReadOnly(Path blob) throws IOException {
+        try {
+            Files.setPosixFilePermissions(blob, READ_ONLY);
+        } catch (UnsupportedOperationException e) {
+            blob.toFile().setReadOnly();
+        }
+    }
+
+    private static boolean isCompressed(Path blob) {
+        return blob.getFileName().toString().endsWith(COMPRESSED_SUFFIX);
+    }
+}
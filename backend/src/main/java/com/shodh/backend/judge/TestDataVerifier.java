@@ -0,0 +1,58 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.repository.TestCaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks at start-up that every test case's data is in the {@link TestDataStore}. A node
+ * pointed at an empty or wrong directory would otherwise judge every submission as a
+ * failure, so it refuses to start instead. Runs after start-up data loading and before the
+ * judge queue starts taking jobs.
+ */
+@Component
+@Slf4j
+public class TestDataVerifier {
+    private static final int REPORTED_IDS = 10;
+
+    private final JudgeProperties.TestData properties;
+    private final TestCaseRepository testCaseRepository;
+    private final TestDataStore store;
+
+    public TestDataVerifier(JudgeProperties properties, TestCaseRepository testCaseRepository, TestDataStore store) {
+        this.properties = properties.getTestData();
+        this.testCaseRepository = testCaseRepository;
+        this.store = store;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void verify() {
+        if (!properties.isVerifyOnStartup()) {
+            return;
+        }
+        List<Object[]> rows = testCaseRepository.findAllTestDataHashes();
+        List<Long> broken = new ArrayList<>();
+        for (Object[] row : rows) {
+            String input = (String) row[1];
+            String expected = (String) row[2];
+            if (expected == null || !store.contains(expected) || (input != null && !store.contains(input))) {
+                broken.add((Long) row[0]);
+            }
+        }
+        if (!broken.isEmpty()) {
+            throw new IllegalStateException(broken.size() + " test cases reference test data missing from " + properties.getDir()
+                + " (test cases " + broken.subList(0, Math.min(REPORTED_IDS, broken.size())) + (broken.size() > REPORTED_IDS ? ", ..." : "")
+                + "). Point judge.test-data.dir at the store they were written to");
+        }
+        log.info("Test data of {} test cases verified in {}", rows.size(), properties.getDir());
+    }
+}
@@ -0,0 +1,152 @@
+package com.shodh.backend.leaderboard;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Live ranking of one contest. Each accepted submission updates the solver's
+ * {@link Standing} in O(log n); nothing is recomputed for anyone else.
+ *
+ * <p>Verdicts can arrive out of order, so a problem counts with its earliest accepted
+ * submission: a later acceptance of an already solved problem changes nothing, an earlier
+ * one lowers the penalty. That also makes applying the same acceptance twice harmless.
+ */
+public class ContestStandings {
+    private final Long contestId;
+    private final String contestTitle;
+    private final LocalDateTime contestStart;
+    private final RankingTree<Standing> ranking = new RankingTree<>();
+    private final Map<Long, Standing> byUser = new HashMap<>();
+    private final Map<String, Long> userIds = new HashMap<>();
+    // userId -> problemId -> earliest acceptance
+    private final Map<Long, Map<Long, Solve>> solves = new HashMap<>();
+    // userId -> rank before the first change since the last drainChanges(), 0 if unranked
+    private final Map<Long, Integer> changedSince = new LinkedHashMap<>();
+    private long version;
+    private LocalDateTime lastChangedAt = LocalDateTime.now();
+    // Distinguishes this instance's versions from those of earlier builds or other nodes
+    private final long epoch = ThreadLocalRandom.current().nextLong() >>> 1;
+
+    public ContestStandings(Long contestId, String contestTitle, LocalDateTime contestStart) {
+        this.contestId = contestId;
+        this.contestTitle = contestTitle;
+        this.contestStart = contestStart;
+    }
+
+    /**
+     * Records an accepted submission; returns whether the leaderboard changed.
+     */
+    public synchronized boolean accept(long userId, String username, long problemId, int points, LocalDateTime submittedAt) {
+        Map<Long, Solve> userSolves = solves.computeIfAbsent(userId, id -> new HashMap<>());
+        Solve previous = userSolves.get(problemId);
+        if (previous != null && !submittedAt.isBefore(previous.submittedAt)) {
+            return false;
+        }
+        userSolves.put(problemId, new Solve(points, submittedAt));
+
+        int totalPoints = 0;
+        long penalty = 0;
+        LocalDateTime lastAcceptedAt = null;
+        for (Solve solve : userSolves.values()) {
+            totalPoints += solve.points;
+            penalty += penaltyMinutes(solve.submittedAt);
+            if (lastAcceptedAt == null || solve.submittedAt.isAfter(lastAcceptedAt)) {
+                lastAcceptedAt = solve.submittedAt;
+            }
+        }
+        Standing updated = new Standing(userId, username, userSolves.size(), totalPoints, penalty, lastAcceptedAt);
+        userIds.put(username, userId);
+        Standing old = byUser.put(userId, updated);
+        if (old != null) {
+            changedSince.putIfAbsent(userId, ranking.rank(old) + 1);
+            ranking.remove(old);
+        } else {
+            changedSince.putIfAbsent(userId, 0);
+        }
+        ranking.insert(updated);
+        version++;
+        lastChangedAt = LocalDateTime.now();
+        return true;
+    }
+
+    /**
+     * 1-based rank of the user, or 0 if they have not solved anything.
+     */
+    public synchronized int rankOf(long userId) {
+        Standing standing = byUser.get(userId);
+        return standing == null ? 0 : ranking.rank(standing) + 1;
+    }
+
+    /**
+     * 1-based rank of the user with that name, or 0 if they have not solved anything.
+     */
+    public synchronized int rankOf(String username) {
+        Long userId = userIds.get(username);
+        return userId == null ? 0 : rankOf(userId);
+    }
+
+    /**
+     * Users whose standing changed since the previous call, with their rank before the first
+     * of those changes and their rank now, best new rank first. Several changes of one user
+     * collapse into one.
+     */
+    public synchronized List<RankChange> drainChanges() {
+        List<RankChange> changes = new ArrayList<>(changedSince.size());
+        for (Map.Entry<Long, Integer> changed : changedSince.entrySet()) {
+            Standing standing = byUser.get(changed.getKey());
+            changes.add(new RankChange(standing, changed.getValue(), ranking.rank(standing) + 1));
+        }
+        changedSince.clear();
+        changes.sort(Comparator.comparingInt(RankChange::newRank));
+        return changes;
+    }
+
+    public synchronized List<Standing> range(int offset, int limit) {
+        return ranking.range(offset, limit);
+    }
+
+    public synchronized List<Standing> all() {
+        return ranking.toList();
+    }
+
+    public synchronized int size() {
+        return ranking.size();
+    }
+
+    /**
+     * Bumped on every change.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized LocalDateTime lastChangedAt() {
+        return lastChangedAt;
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public Long getContestId() {
+        return contestId;
+    }
+
+    public String getContestTitle() {
+        return contestTitle;
+    }
+
+    private long penaltyMinutes(LocalDateTime submittedAt) {
+        return contestStart == null ? 0 : Duration.between(contestStart, submittedAt).toMinutes();
+    }
+
+    private record Solve(int points, LocalDateTime submittedAt) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.shodh.backend.leaderboard;
+
+/**
+ * A leaderboard response serialized once for one version of the standings and then served
+ * as-is to every request for the same page until the standings change.
+ */
+public record LeaderboardSnapshot(long version, String etag, byte[] json) {
+}
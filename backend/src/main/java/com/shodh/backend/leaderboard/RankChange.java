@@ -0,0 +1,8 @@
+package com.shodh.backend.leaderboard;
+
+/**
+ * A user's move on the board: their standing now, and their rank before and after (1-based,
+ * 0 before their first solve).
+ */
+public record RankChange(Standing standing, int oldRank, int newRank) {
+}
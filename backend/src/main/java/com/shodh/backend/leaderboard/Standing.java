@@ -0,0 +1,25 @@
+package com.shodh.backend.leaderboard;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's row of a contest leaderboard. Ordered as the board is ranked: more problems
+ * solved, then more points, then less penalty time; the user id keeps ties deterministic.
+ */
+public record Standing(long userId, String username, int problemsSolved, int totalPoints, long penaltyMinutes,
+                       LocalDateTime lastAcceptedAt) implements Comparable<Standing> {
+
+    @Override
+    public int compareTo(Standing other) {
+        if (problemsSolved != other.problemsSolved) {
+            return Integer.compare(other.problemsSolved, problemsSolved);
+        }
+        if (totalPoints != other.totalPoints) {
+            return Integer.compare(other.totalPoints, totalPoints);
+        }
+        if (penaltyMinutes != other.penaltyMinutes) {
+            return Long.compare(penaltyMinutes, other.penaltyMinutes);
+        }
+        return Long.compare(userId, other.userId);
+    }
+}
@@ -1,26 +1,33 @@
 package com.shodh.backend.model;
 
+import com.shodh.backend.service.ContestStatementInvalidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
 @Table(name = "contests")
+@EntityListeners(ContestStatementInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Contest {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contests_seq")
+    @SequenceGenerator(name = "contests_seq", sequenceName = "contests_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -45,6 +52,8 @@ public class Contest {
     @Builder.Default
     private List<Problem> problems = new ArrayList<>();
 
+    // A set so the join table gets a (contest_id, user_id) primary key; registration inserts rows
+    // directly (ContestRepository.insertParticipant) instead of loading this collection
     @ManyToMany
     @JoinTable(
         name = "contest_participants",
@@ -52,7 +61,9 @@ public class Contest {
         inverseJoinColumns = @JoinColumn(name = "user_id")
     )
     @Builder.Default
-    private List<User> participants = new ArrayList<>();
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<User> participants = new HashSet<>();
 
     @OneToMany(mappedBy = "contest", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
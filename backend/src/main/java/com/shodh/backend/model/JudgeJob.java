@@ -0,0 +1,66 @@
+package com.shodh.backend.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox row asking for a submission to be judged. Written in the same transaction as the
+ * submission, leased by one judge worker at a time and deleted once the verdict is saved.
+ * A lease that is not renewed by heartbeats expires and the job is picked up again.
+ */
+@Entity
+@Table(name = "judge_jobs", indexes = {
+    @Index(name = "idx_judge_jobs_status", columnList = "status, lease_expires_at"),
+    @Index(name = "idx_judge_jobs_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JudgeJob {
+    @Id
+    // Jobs are claimed in id order; pooled sequence blocks would interleave across nodes
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Column(name = "submission_id", nullable = false, unique = true)
+    private Long submissionId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    private JudgeJobStatus status;
+
+    // Fair-share keys and priority class, copied from the submission so picking a job needs no joins
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "contest_id")
+    private Long contestId;
+
+    @Enumerated(EnumType.STRING)
+    private JudgeLane lane;
+
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (status == null) {
+            status = JudgeJobStatus.QUEUED;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.shodh.backend.model;
+
+public enum JudgeJobStatus {
+    QUEUED,
+    LEASED
+}
@@ -0,0 +1,14 @@
+package com.shodh.backend.model;
+
+/**
+ * Priority class of a judge job, highest first. Lanes share the judge by weight
+ * ({@code judge.queue.lane-weights}), so lower lanes are slowed down but never starved.
+ */
+public enum JudgeLane {
+    // First attempt at a problem of a running contest
+    CONTEST,
+    CONTEST_RESUBMIT,
+    // Submission to a contest that is not running
+    PRACTICE,
+    PRACTICE_RESUBMIT
+}
@@ -1,5 +1,6 @@
 package com.shodh.backend.model;
 
+import com.shodh.backend.service.ContestStatementInvalidator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -10,13 +11,15 @@ import java.util.List;
 
 @Entity
 @Table(name = "problems")
+@EntityListeners(ContestStatementInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Problem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "problems_seq")
+    @SequenceGenerator(name = "problems_seq", sequenceName = "problems_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -0,0 +1,26 @@
+package com.shodh.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Submission counters of a problem. Kept up to date by adding deltas, so every node can
+ * flush its own counts without reading or locking the row first.
+ */
+@Entity
+@Table(name = "problem_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProblemStats {
+    @Id
+    @Column(name = "problem_id")
+    private Long problemId;
+
+    @Column(name = "total_submissions", nullable = false)
+    private Long totalSubmissions;
+
+    @Column(name = "accepted_submissions", nullable = false)
+    private Long acceptedSubmissions;
+}
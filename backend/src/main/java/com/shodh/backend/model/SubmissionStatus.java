@@ -7,7 +7,14 @@ public enum SubmissionStatus {
     WRONG_ANSWER,
     TIME_LIMIT_EXCEEDED,
     MEMORY_LIMIT_EXCEEDED,
+    OUTPUT_LIMIT_EXCEEDED,
     RUNTIME_ERROR,
-    COMPILATION_ERROR
-}
+    COMPILATION_ERROR;
 
+    /**
+     * Whether this is a verdict, i.e. the submission will not change any more.
+     */
+    public boolean isFinal() {
+        return this != PENDING && this != RUNNING;
+    }
+}
@@ -1,26 +1,44 @@
 package com.shodh.backend.model;
 
+import com.shodh.backend.judge.TestDataListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 @Entity
 @Table(name = "test_cases")
+@EntityListeners(TestDataListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class TestCase {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "test_cases_seq")
+    @SequenceGenerator(name = "test_cases_seq", sequenceName = "test_cases_seq", allocationSize = 50)
     private Long id;
 
-    @Column(columnDefinition = "TEXT")
+    // Test data lives in the TestDataStore; these are only set when creating or replacing it
+    @Transient
+    @ToString.Exclude
     private String input;
 
-    @Column(name = "expected_output", columnDefinition = "TEXT")
+    @Transient
+    @ToString.Exclude
     private String expectedOutput;
 
+    @Column(name = "input_hash", length = 64)
+    private String inputHash;
+
+    @Column(name = "input_size")
+    private Long inputSize;
+
+    @Column(name = "expected_output_hash", length = 64)
+    private String expectedOutputHash;
+
+    @Column(name = "expected_output_size")
+    private Long expectedOutputSize;
+
     @NotNull
     @Column(name = "is_sample")
     private Boolean isSample;
@@ -30,4 +48,3 @@ public class TestCase {
     @ToString.Exclude
     private Problem problem;
 }
-
@@ -2,6 +2,8 @@ package com.shodh.backend.repository;
 
 import com.shodh.backend.model.Contest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -11,5 +13,14 @@ import java.util.List;
 public interface ContestRepository extends JpaRepository<Contest, Long> {
     List<Contest> findByEndTimeAfter(LocalDateTime dateTime);
     List<Contest> findByStartTimeBeforeAndEndTimeAfter(LocalDateTime start, LocalDateTime end);
+
+    @Query(value = "SELECT COUNT(*) FROM contest_participants WHERE contest_id = ?1", nativeQuery = true)
+    long countParticipants(Long contestId);
+
+    // Registers the user unless already registered; returns the number of rows inserted
+    @Modifying
+    @Query(value = "INSERT INTO contest_participants (contest_id, user_id) SELECT ?1, ?2 WHERE NOT EXISTS " +
+                   "(SELECT 1 FROM contest_participants WHERE contest_id = ?1 AND user_id = ?2)", nativeQuery = true)
+    int insertParticipant(Long contestId, Long userId);
 }
 
@@ -0,0 +1,49 @@
+package com.shodh.backend.repository;
+
+import com.shodh.backend.model.JudgeJob;
+import com.shodh.backend.model.JudgeJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JudgeJobRepository extends JpaRepository<JudgeJob, Long> {
+    List<JudgeJob> findByStatusOrderByIdAsc(JudgeJobStatus status, Pageable pageable);
+    List<JudgeJob> findTop20ByStatusAndLeaseExpiresAtBeforeOrderByIdAsc(JudgeJobStatus status, LocalDateTime now);
+    long countByStatus(JudgeJobStatus status);
+    long countByUserId(Long userId);
+
+    @Query("SELECT j.lane, COUNT(j) FROM JudgeJob j WHERE j.status = ?1 GROUP BY j.lane")
+    List<Object[]> countByLane(JudgeJobStatus status);
+
+    // Succeeds for exactly one worker across all nodes: the row must still be queued or its lease expired
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.status = com.shodh.backend.model.JudgeJobStatus.LEASED, j.leaseOwner = ?2, " +
+           "j.leaseExpiresAt = ?3, j.attempts = j.attempts + 1 " +
+           "WHERE j.id = ?1 AND (j.status = com.shodh.backend.model.JudgeJobStatus.QUEUED OR j.leaseExpiresAt < ?4)")
+    int claim(Long id, String owner, LocalDateTime leaseExpiresAt, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.leaseExpiresAt = ?3 WHERE j.id IN ?1 AND j.leaseOwner = ?2")
+    int renewLeases(Collection<Long> ids, String owner, LocalDateTime leaseExpiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE JudgeJob j SET j.status = com.shodh.backend.model.JudgeJobStatus.QUEUED, j.leaseOwner = NULL, " +
+           "j.leaseExpiresAt = NULL WHERE j.id IN ?1 AND j.leaseOwner = ?2")
+    int releaseLeases(Collection<Long> ids, String owner);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM JudgeJob j WHERE j.id = ?1 AND j.leaseOwner = ?2")
+    int complete(Long id, String owner);
+}
@@ -0,0 +1,15 @@
+package com.shodh.backend.repository;
+
+import com.shodh.backend.model.ProblemStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProblemStatsRepository extends JpaRepository<ProblemStats, Long> {
+    @Modifying
+    @Query("UPDATE ProblemStats s SET s.totalSubmissions = s.totalSubmissions + ?2, " +
+           "s.acceptedSubmissions = s.acceptedSubmissions + ?3 WHERE s.problemId = ?1")
+    int increment(Long problemId, long submitted, long accepted);
+}
@@ -3,10 +3,15 @@ package com.shodh.backend.repository;
 import com.shodh.backend.model.Submission;
 import com.shodh.backend.model.SubmissionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
@@ -15,6 +20,26 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     List<Submission> findByContestId(Long contestId);
     List<Submission> findByContestIdAndUserId(Long contestId, Long userId);
     List<Submission> findByStatus(SubmissionStatus status);
+
+    // Status columns only, for event streams; never loads code or associations
+    Optional<StatusView> findStatusById(Long id);
+    List<StatusView> findStatusByIdIn(Collection<Long> ids);
+
+    @Query("SELECT s FROM Submission s JOIN FETCH s.contest WHERE s.status IN ?1 " +
+           "AND NOT EXISTS (SELECT j FROM JudgeJob j WHERE j.submissionId = s.id)")
+    List<Submission> findWithoutJudgeJob(Collection<SubmissionStatus> statuses);
+
+    // Stores a verdict only if none is stored yet, so a submission judged twice (its lease expired) counts once
+    @Modifying
+    @Transactional
+    @Query("UPDATE Submission s SET s.status = ?2, s.executionTime = ?3, s.memoryUsed = ?4, s.output = ?5, s.error = ?6 " +
+           "WHERE s.id = ?1 AND s.status IN (com.shodh.backend.model.SubmissionStatus.PENDING, " +
+           "com.shodh.backend.model.SubmissionStatus.RUNNING)")
+    int saveVerdict(Long id, SubmissionStatus status, Long executionTime, Long memoryUsed, String output, String error);
+
+    // Ids come from pooled sequences and are not in submission order across nodes
+    boolean existsByUserIdAndProblemIdAndSubmittedAtLessThanEqualAndIdNot(Long userId, Long problemId,
+                                                                           LocalDateTime submittedAt, Long id);
     
     @Query("SELECT s FROM Submission s WHERE s.contest.id = ?1 AND s.status = 'ACCEPTED' " +
            "GROUP BY s.user.id, s.problem.id ORDER BY s.submittedAt")
@@ -23,5 +48,33 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     @Query("SELECT s FROM Submission s WHERE s.contest.id = ?1 AND s.user.id = ?2 AND s.problem.id = ?3 " +
            "AND s.status = 'ACCEPTED' ORDER BY s.submittedAt ASC")
     List<Submission> findFirstAcceptedSubmission(Long contestId, Long userId, Long problemId);
+
+    // problemId, submissions, accepted submissions; only used to seed the problem_stats counters
+    @Query("SELECT s.problem.id, COUNT(s), SUM(CASE WHEN s.status = com.shodh.backend.model.SubmissionStatus.ACCEPTED " +
+           "THEN 1 ELSE 0 END) FROM Submission s WHERE s.problem.id IN ?1 GROUP BY s.problem.id")
+    List<Object[]> countByProblemIds(Collection<Long> problemIds);
+
+    // Just what the leaderboard needs, in one query without loading code or entities
+    @Query("SELECT u.id AS userId, u.username AS username, p.id AS problemId, p.points AS points, " +
+           "s.submittedAt AS submittedAt FROM Submission s JOIN s.user u JOIN s.problem p " +
+           "WHERE s.contest.id = ?1 AND s.status = com.shodh.backend.model.SubmissionStatus.ACCEPTED")
+    List<AcceptedView> findAcceptedByContestId(Long contestId);
+
+    interface AcceptedView {
+        Long getUserId();
+        String getUsername();
+        Long getProblemId();
+        Integer getPoints();
+        LocalDateTime getSubmittedAt();
+    }
+
+    interface StatusView {
+        Long getId();
+        SubmissionStatus getStatus();
+        Long getExecutionTime();
+        Long getMemoryUsed();
+        String getOutput();
+        String getError();
+    }
 }
 
@@ -2,6 +2,7 @@ package com.shodh.backend.repository;
 
 import com.shodh.backend.model.TestCase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +11,10 @@ import java.util.List;
 public interface TestCaseRepository extends JpaRepository<TestCase, Long> {
     List<TestCase> findByProblemId(Long problemId);
     List<TestCase> findByProblemIdAndIsSample(Long problemId, Boolean isSample);
+    List<TestCase> findByProblemContestId(Long contestId);
+
+    // id, input hash, expected output hash
+    @Query("SELECT t.id, t.inputHash, t.expectedOutputHash FROM TestCase t")
+    List<Object[]> findAllTestDataHashes();
 }
 
@@ -1,33 +1,159 @@
 package com.shodh.backend.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.backend.config.ContestProperties;
 import com.shodh.backend.dto.ContestResponse;
+import com.shodh.backend.dto.ContestStatusResponse;
 import com.shodh.backend.dto.ProblemResponse;
+import com.shodh.backend.dto.ProblemStatsResponse;
 import com.shodh.backend.model.Contest;
+import com.shodh.backend.model.Problem;
 import com.shodh.backend.repository.ContestRepository;
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+/**
+ * Contest reads. The statement of a contest is read from the database and serialized once,
+ * then served from a bounded LRU cache; when a contest starts and everyone opens it at
+ * once, one request builds the statement and the others wait for it. The parts that change
+ * while the contest runs are looked up per request and merged in.
+ */
 @Service
-@RequiredArgsConstructor
-@Transactional
 public class ContestService {
     private final ContestRepository contestRepository;
+    private final ProblemStatsService problemStatsService;
+    private final ParticipantService participantService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    // Access-ordered; a future stands for a statement being built
+    private final Map<Long, CompletableFuture<ContestStatement>> statements;
+
+    public ContestService(ContestRepository contestRepository, ProblemStatsService problemStatsService,
+                          ParticipantService participantService, ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                          ContestProperties properties) {
+        this.contestRepository = contestRepository;
+        this.problemStatsService = problemStatsService;
+        this.participantService = participantService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        int cacheSize = properties.getStatementCacheSize();
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<ContestStatement>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
 
     public ContestResponse getContestById(Long contestId) {
-        Contest contest = contestRepository.findById(contestId)
-            .orElseThrow(() -> new RuntimeException("Contest not found with id: " + contestId));
-        
-        return mapToContestResponse(contest);
+        ContestStatement statement = getStatement(contestId);
+        ContestStatusResponse status = getStatus(statement);
+        Map<Long, ProblemStatsResponse> stats = status.getProblems().stream()
+            .collect(Collectors.toMap(ProblemStatsResponse::getId, problem -> problem));
+
+        return statement.contest().toBuilder()
+            .problems(statement.contest().getProblems().stream()
+                .map(problem -> problem.toBuilder()
+                    .totalSubmissions(stats.get(problem.getId()).getTotalSubmissions())
+                    .acceptedSubmissions(stats.get(problem.getId()).getAcceptedSubmissions())
+                    .build())
+                .collect(Collectors.toList()))
+            .participantsCount(status.getParticipantsCount())
+            .isActive(status.getIsActive())
+            .build();
     }
 
-    private ContestResponse mapToContestResponse(Contest contest) {
+    public ContestStatusResponse getStatus(Long contestId) {
+        return getStatus(getStatement(contestId));
+    }
+
+    public ContestStatement getStatement(Long contestId) {
+        CompletableFuture<ContestStatement> future;
+        boolean build = false;
+        synchronized (statements) {
+            future = statements.get(contestId);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                statements.put(contestId, future);
+                build = true;
+            }
+        }
+        if (build) {
+            try {
+                future.complete(buildStatement(contestId));
+            } catch (RuntimeException e) {
+                // Not cached, so the next request tries again
+                evict(contestId);
+                future.completeExceptionally(e);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the cached statement; the next read builds it from the database again.
+     */
+    public void evict(Long contestId) {
+        synchronized (statements) {
+            statements.remove(contestId);
+        }
+    }
+
+    private ContestStatusResponse getStatus(ContestStatement statement) {
+        ContestResponse contest = statement.contest();
         LocalDateTime now = LocalDateTime.now();
         boolean isActive = now.isAfter(contest.getStartTime()) && now.isBefore(contest.getEndTime());
-        
+        Map<Long, ProblemStatsService.Counts> counts = problemStatsService.get(
+            contest.getProblems().stream().map(ProblemResponse::getId).toList());
+
+        return ContestStatusResponse.builder()
+            .id(contest.getId())
+            .participantsCount((int) participantService.count(contest.getId()))
+            .isActive(isActive)
+            .problems(contest.getProblems().stream()
+                .map(problem -> ProblemStatsResponse.builder()
+                    .id(problem.getId())
+                    .totalSubmissions((int) counts.get(problem.getId()).submitted())
+                    .acceptedSubmissions((int) counts.get(problem.getId()).accepted())
+                    .build())
+                .collect(Collectors.toList()))
+            .build();
+    }
+
+    private ContestStatement buildStatement(Long contestId) {
+        ContestResponse contest = readOnlyTransaction.execute(status -> {
+            Contest entity = contestRepository.findById(contestId)
+                .orElseThrow(() -> new RuntimeException("Contest not found with id: " + contestId));
+            return mapToContestResponse(entity);
+        });
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(contest);
+            return new ContestStatement(contest, "\"" + DigestUtils.md5DigestAsHex(json) + "\"", json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize contest", e);
+        }
+    }
+
+    private ContestResponse mapToContestResponse(Contest contest) {
         return ContestResponse.builder()
             .id(contest.getId())
             .title(contest.getTitle())
@@ -37,17 +163,10 @@ public class ContestService {
             .problems(contest.getProblems().stream()
                 .map(this::mapToProblemResponse)
                 .collect(Collectors.toList()))
-            .participantsCount(contest.getParticipants().size())
-            .isActive(isActive)
             .build();
     }
 
-    private ProblemResponse mapToProblemResponse(com.shodh.backend.model.Problem problem) {
-        int totalSubmissions = problem.getSubmissions().size();
-        int acceptedSubmissions = (int) problem.getSubmissions().stream()
-            .filter(s -> s.getStatus() == com.shodh.backend.model.SubmissionStatus.ACCEPTED)
-            .count();
-        
+    private ProblemResponse mapToProblemResponse(Problem problem) {
         return ProblemResponse.builder()
             .id(problem.getId())
             .title(problem.getTitle())
@@ -58,8 +177,6 @@ public class ContestService {
             .timeLimit(problem.getTimeLimit())
             .memoryLimit(problem.getMemoryLimit())
             .points(problem.getPoints())
-            .totalSubmissions(totalSubmissions)
-            .acceptedSubmissions(acceptedSubmissions)
             .build();
     }
 }
@@ -0,0 +1,11 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.dto.ContestResponse;
+
+/**
+ * The parts of a contest that do not change while it runs (title, description, times and
+ * problem statements), built once and kept together with its JSON encoding. The counters,
+ * participant count and {@code isActive} of {@code contest} are not set.
+ */
+public record ContestStatement(ContestResponse contest, String etag, byte[] json) {
+}
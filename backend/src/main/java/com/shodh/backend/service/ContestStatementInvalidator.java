@@ -0,0 +1,45 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.model.Contest;
+import com.shodh.backend.model.Problem;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link Contest} and {@link Problem} that drops the cached statement of a
+ * contest once a change to it commits.
+ */
+@Component
+public class ContestStatementInvalidator {
+    // Looked up lazily: listeners are created while the entity manager factory is still being built
+    private final ObjectProvider<ContestService> contestService;
+
+    public ContestStatementInvalidator(ObjectProvider<ContestService> contestService) {
+        this.contestService = contestService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        Long contestId = entity instanceof Problem problem
+            ? (problem.getContest() == null ? null : problem.getContest().getId())
+            : ((Contest) entity).getId();
+        if (contestId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    contestService.getObject().evict(contestId);
+                }
+            });
+        } else {
+            contestService.getObject().evict(contestId);
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.dto.SubmissionEvent;
+import com.shodh.backend.exception.TooManySubmissionsException;
+import com.shodh.backend.judge.FairShareSelector;
+import com.shodh.backend.judge.JudgeConcurrencyLimiter;
+import com.shodh.backend.judge.JudgeThreads;
+import com.shodh.backend.model.Contest;
+import com.shodh.backend.model.JudgeJob;
+import com.shodh.backend.model.JudgeJobStatus;
+import com.shodh.backend.model.JudgeLane;
+import com.shodh.backend.model.Submission;
+import com.shodh.backend.model.SubmissionStatus;
+import com.shodh.backend.repository.JudgeJobRepository;
+import com.shodh.backend.repository.SubmissionRepository;
+import com.shodh.backend.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable judge queue backed by the {@code judge_jobs} table. Submitting only inserts a job
+ * row next to the submission; worker threads lease jobs with a conditional update, keep the
+ * lease alive with heartbeats while judging and delete the job when the verdict is stored.
+ * Jobs whose lease expires (the node crashed or was killed) are picked up again, and
+ * submissions left PENDING or RUNNING without a job are re-enqueued on start-up.
+ *
+ * <p>Which queued job runs next is decided by {@link FairShareSelector} (priority lanes,
+ * fair across users and contests), and {@link #admit} turns submissions away with a
+ * retry hint once the queue or the user's share of it is full.
+ */
+@Service
+@Slf4j
+public class JudgeDispatcher {
+    private final JudgeJobRepository jobRepository;
+    private final UserRepository userRepository;
+    private final SubmissionRepository submissionRepository;
+    private final JudgeService judgeService;
+    private final JudgeProperties.Queue properties;
+    private final TransactionTemplate transactionTemplate;
+    private final FairShareSelector selector;
+    private final JudgeConcurrencyLimiter limiter;
+    private final JudgeThreads judgeThreads;
+    private final SubmissionEventService submissionEventService;
+    // Identifies this process as lease owner; a restarted node is a new owner
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Semaphore wakeups = new Semaphore(0);
+    private final List<Thread> workers = new ArrayList<>();
+    // Lease renewal must not wait behind other @Scheduled tasks, or busy jobs would be taken over
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable ->
+        Thread.ofPlatform().name("Judge-Heartbeat").daemon().unstarted(runnable));
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong rejectedQueueFull = new AtomicLong();
+    private final AtomicLong rejectedUserLimit = new AtomicLong();
+    // Moving average of how long one submission takes to judge, for Retry-After estimates
+    private volatile double averageJudgeMs = 2000;
+
+    public JudgeDispatcher(JudgeJobRepository jobRepository, UserRepository userRepository,
+                           SubmissionRepository submissionRepository,
+                           JudgeService judgeService, JudgeProperties properties, TransactionTemplate transactionTemplate,
+                           JudgeConcurrencyLimiter limiter, JudgeThreads judgeThreads,
+                           SubmissionEventService submissionEventService) {
+        this.jobRepository = jobRepository;
+        this.userRepository = userRepository;
+        this.submissionRepository = submissionRepository;
+        this.judgeService = judgeService;
+        this.properties = properties.getQueue();
+        this.transactionTemplate = transactionTemplate;
+        this.selector = new FairShareSelector(this.properties.getLaneWeights());
+        this.limiter = limiter;
+        this.judgeThreads = judgeThreads;
+        this.submissionEventService = submissionEventService;
+    }
+
+    /**
+     * Turns a submission away early, before anything is written for it, when the queue is
+     * full or the user (null for one who has never submitted) is at their limit. Unlocked, so
+     * it may let a submission through that {@link #admit} rejects after all.
+     */
+    public void precheck(Long userId) {
+        checkLimits(userId);
+    }
+
+    /**
+     * Rejects a new submission of the user when the queue is full or the user already has
+     * {@code max-queued-per-user} submissions waiting or being judged. Call it in the
+     * transaction that enqueues the submission: it locks the user's row until that
+     * transaction ends, so concurrent submissions of one user on any node cannot all pass
+     * the per-user check, while different users never wait for each other. The queue cap is
+     * checked without a lock and can be overshot by as many submissions as are admitted at
+     * the same moment.
+     */
+    public void admit(Long userId) {
+        userRepository.lockById(userId)
+            .orElseThrow(() -> new IllegalStateException("User " + userId + " does not exist"));
+        checkLimits(userId);
+    }
+
+    /**
+     * Adds a job for the submission in the caller's transaction. Workers are woken only
+     * once that transaction commits, so they never look for a row they cannot see yet.
+     */
+    public void enqueue(Submission submission) {
+        Long userId = submission.getUser().getId();
+        jobRepository.save(JudgeJob.builder()
+            .submissionId(submission.getId())
+            .status(JudgeJobStatus.QUEUED)
+            .userId(userId)
+            .contestId(submission.getContest().getId())
+            .lane(laneOf(submission, userId))
+            .build());
+        enqueued.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Integer orphaned = transactionTemplate.execute(status -> {
+            List<Submission> submissions = submissionRepository.findWithoutJudgeJob(
+                List.of(SubmissionStatus.PENDING, SubmissionStatus.RUNNING));
+            submissions.forEach(this::enqueue);
+            return submissions.size();
+        });
+        if (orphaned != null && orphaned > 0) {
+            recovered.addAndGet(orphaned);
+            log.info("Re-enqueued {} submissions left pending or running", orphaned);
+        }
+
+        running = true;
+        // One thread per possible permit; the limiter decides how many of them judge at a time
+        for (int i = 1; i <= limiter.getMaxLimit(); i++) {
+            Thread worker = judgeThreads.newThread("Judge-" + i, this::work);
+            workers.add(worker);
+            worker.start();
+        }
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat() {
+        try {
+            Set<Long> ids = new HashSet<>(inFlight);
+            if (!ids.isEmpty()) {
+                jobRepository.renewLeases(ids, owner, leaseDeadline());
+            }
+        } catch (Exception e) {
+            // A failed run would cancel every later one
+            log.error("Renewing judge leases failed: {}", e.getMessage());
+        }
+        // Expired leases of other nodes are only visible by polling
+        wakeUp();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", workers.size());
+        stats.put("virtualThreads", judgeThreads.isVirtual());
+        stats.put("concurrency", limiter.stats());
+        stats.put("inFlight", inFlight.size());
+        stats.put("queued", jobRepository.countByStatus(JudgeJobStatus.QUEUED));
+        stats.put("leased", jobRepository.countByStatus(JudgeJobStatus.LEASED));
+        Map<String, Long> lanes = new LinkedHashMap<>();
+        for (Object[] row : jobRepository.countByLane(JudgeJobStatus.QUEUED)) {
+            lanes.put(String.valueOf(row[0]), (Long) row[1]);
+        }
+        stats.put("queuedByLane", lanes);
+        stats.put("enqueued", enqueued.get());
+        stats.put("claimed", claimed.get());
+        stats.put("completed", completed.get());
+        stats.put("reclaimed", reclaimed.get());
+        stats.put("abandoned", abandoned.get());
+        stats.put("retried", retried.get());
+        stats.put("recovered", recovered.get());
+        stats.put("rejectedQueueFull", rejectedQueueFull.get());
+        stats.put("rejectedUserLimit", rejectedUserLimit.get());
+        stats.put("averageJudgeMs", Math.round(averageJudgeMs));
+        stats.put("fairShare", selector.stats());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        heartbeats.shutdownNow();
+        workers.forEach(Thread::interrupt);
+        Set<Long> ids = new HashSet<>(inFlight);
+        if (!ids.isEmpty()) {
+            // Hand unfinished jobs back right away instead of waiting for their leases to expire
+            jobRepository.releaseLeases(ids, owner);
+        }
+    }
+
+    private void work() {
+        while (running) {
+            if (!limiter.tryAcquire()) {
+                try {
+                    wakeups.tryAcquire(properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            try {
+                JudgeJob job = claimNext();
+                if (job == null) {
+                    limiter.release();
+                    wakeups.tryAcquire(properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                    continue;
+                }
+                try {
+                    process(job);
+                } finally {
+                    limiter.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Judge worker error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private JudgeJob claimNext() {
+        LocalDateTime now = LocalDateTime.now();
+        // Jobs orphaned by a dead node have already waited their turn
+        List<JudgeJob> candidates = new ArrayList<>(
+            jobRepository.findTop20ByStatusAndLeaseExpiresAtBeforeOrderByIdAsc(JudgeJobStatus.LEASED, now));
+        candidates.addAll(selector.order(jobRepository.findByStatusOrderByIdAsc(
+            JudgeJobStatus.QUEUED, PageRequest.of(0, properties.getCandidateWindow()))));
+        for (JudgeJob candidate : candidates) {
+            if (jobRepository.claim(candidate.getId(), owner, leaseDeadline(), now) == 1) {
+                claimed.incrementAndGet();
+                selector.served(candidate);
+                if (candidate.getCreatedAt() != null) {
+                    limiter.recordQueueLatency(Duration.between(candidate.getCreatedAt(), now).toMillis());
+                }
+                if (candidate.getStatus() == JudgeJobStatus.LEASED) {
+                    reclaimed.incrementAndGet();
+                    log.warn("Reclaimed judge job for submission {} from expired lease of {}",
+                        candidate.getSubmissionId(), candidate.getLeaseOwner());
+                }
+                candidate.setAttempts(candidate.getAttempts() + 1);
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void process(JudgeJob job) {
+        Long submissionId = job.getSubmissionId();
+        inFlight.add(job.getId());
+        long startedAt = System.nanoTime();
+        boolean requeue = false;
+        try {
+            if (job.getAttempts() > properties.getMaxAttempts()) {
+                // Keeps taking a judge node down with it; stop retrying
+                abandoned.incrementAndGet();
+                markFailed(submissionId, "Judging failed after " + properties.getMaxAttempts() + " attempts");
+            } else {
+                judgeService.judgeSubmission(submissionId);
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                averageJudgeMs = averageJudgeMs * 0.9 + elapsedMs * 0.1;
+            }
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            if (job.getAttempts() < properties.getMaxAttempts()) {
+                // A judge-side failure (sandbox, test data, database) says nothing about the submission; try again
+                log.warn("Judging submission {} failed, queueing it again: {}", submissionId, e.getMessage());
+                retried.incrementAndGet();
+                requeue = true;
+            } else {
+                log.error("Error processing submission {}: {}", submissionId, e.getMessage());
+                markFailed(submissionId, e.getMessage());
+            }
+        } finally {
+            inFlight.remove(job.getId());
+            if (requeue) {
+                jobRepository.releaseLeases(List.of(job.getId()), owner);
+                wakeUp();
+            } else {
+                jobRepository.complete(job.getId(), owner);
+            }
+        }
+    }
+
+    private void markFailed(Long submissionId, String error) {
+        if (submissionRepository.saveVerdict(submissionId, SubmissionStatus.RUNTIME_ERROR, null, null, null, error) == 1) {
+            submissionEventService.publish(SubmissionEvent.builder()
+                .submissionId(submissionId)
+                .status(SubmissionStatus.RUNTIME_ERROR)
+                .error(error)
+                .build());
+        }
+    }
+
+    private void checkLimits(Long userId) {
+        long queued = jobRepository.countByStatus(JudgeJobStatus.QUEUED);
+        if (queued >= properties.getMaxQueued()) {
+            rejectedQueueFull.incrementAndGet();
+            throw new TooManySubmissionsException("The judge queue is full, please retry later",
+                retryAfterSeconds(queued - properties.getMaxQueued() + 1));
+        }
+        if (userId == null) {
+            return;
+        }
+        long pending = jobRepository.countByUserId(userId);
+        if (pending >= properties.getMaxQueuedPerUser()) {
+            rejectedUserLimit.incrementAndGet();
+            // One of the user's own jobs has to finish; it may be behind everything queued
+            throw new TooManySubmissionsException("You already have " + pending + " submissions waiting to be judged",
+                retryAfterSeconds(Math.max(1, queued)));
+        }
+    }
+
+    private JudgeLane laneOf(Submission submission, Long userId) {
+        Contest contest = submission.getContest();
+        LocalDateTime now = LocalDateTime.now();
+        boolean running = (contest.getStartTime() == null || !now.isBefore(contest.getStartTime()))
+            && (contest.getEndTime() == null || now.isBefore(contest.getEndTime()));
+        boolean resubmit = submissionRepository.existsByUserIdAndProblemIdAndSubmittedAtLessThanEqualAndIdNot(
+            userId, submission.getProblem().getId(), submission.getSubmittedAt(), submission.getId());
+        if (running) {
+            return resubmit ? JudgeLane.CONTEST_RESUBMIT : JudgeLane.CONTEST;
+        }
+        return resubmit ? JudgeLane.PRACTICE_RESUBMIT : JudgeLane.PRACTICE;
+    }
+
+    private long retryAfterSeconds(long jobsAhead) {
+        double seconds = jobsAhead * averageJudgeMs / Math.max(1, properties.getWorkers()) / 1000;
+        return Math.max(1, Math.min(300, (long) Math.ceil(seconds)));
+    }
+
+    private void wakeUp() {
+        if (wakeups.availablePermits() < limiter.getLimit()) {
+            wakeups.release();
+        }
+    }
+
+    private LocalDateTime leaseDeadline() {
+        return LocalDateTime.now().plus(properties.getLeaseTimeout());
+    }
+}
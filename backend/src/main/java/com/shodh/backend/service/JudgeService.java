@@ -1,81 +1,158 @@
 package com.shodh.backend.service;
 
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.dto.SubmissionEvent;
+import com.shodh.backend.judge.ArtifactCache;
+import com.shodh.backend.judge.BatchRunner;
+import com.shodh.backend.judge.CancellationToken;
+import com.shodh.backend.judge.CompilationException;
+import com.shodh.backend.judge.CompiledArtifact;
+import com.shodh.backend.judge.JudgeConcurrencyLimiter;
+import com.shodh.backend.judge.JudgeFiles;
+import com.shodh.backend.judge.JudgeThreads;
+import com.shodh.backend.judge.OutputComparator;
+import com.shodh.backend.judge.ResourceUsage;
+import com.shodh.backend.judge.Sandbox;
+import com.shodh.backend.judge.SandboxBackend;
+import com.shodh.backend.judge.SandboxPool;
+import com.shodh.backend.judge.StreamPump;
+import com.shodh.backend.judge.TestCaseScheduler;
+import com.shodh.backend.judge.TestDataStore;
 import com.shodh.backend.model.*;
 import com.shodh.backend.repository.SubmissionRepository;
 import com.shodh.backend.repository.TestCaseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
 @Slf4j
 public class JudgeService {
+    private static final long BATCH_OVERHEAD_MS = 5000;
+    private static final long STREAM_DRAIN_TIMEOUT_MS = 2000;
+    // Sandbox start-up (docker exec/run) on top of the in-sandbox wall limit
+    private static final long MEASURE_OVERHEAD_MS = 3000;
+    private static final List<String> OUT_OF_MEMORY_MARKERS = List.of("java.lang.OutOfMemoryError", "MemoryError", "std::bad_alloc",
+        "JavaScript heap out of memory");
+
     private final SubmissionRepository submissionRepository;
     private final TestCaseRepository testCaseRepository;
+    private final SandboxPool sandboxPool;
+    private final SandboxBackend sandboxBackend;
+    private final ArtifactCache artifactCache;
+    private final TestCaseScheduler testCaseScheduler;
+    private final JudgeProperties judgeProperties;
+    private final TestDataStore testDataStore;
+    private final TransactionTemplate transactionTemplate;
+    private final JudgeConcurrencyLimiter concurrencyLimiter;
+    private final JudgeThreads judgeThreads;
+    private final SubmissionEventService submissionEventService;
+    private final LeaderboardService leaderboardService;
+    private final ProblemStatsService problemStatsService;
 
+    /**
+     * Judges a submission without holding a transaction or connection while code runs: one
+     * short transaction marks it RUNNING and takes a detached snapshot of what judging needs,
+     * execution touches no database resources, and the verdict is written in a second one
+     * unless another node has stored one since, so a verdict is only ever counted once.
+     */
     public void judgeSubmission(Long submissionId) {
-        Submission submission = submissionRepository.findById(submissionId)
-            .orElseThrow(() -> new RuntimeException("Submission not found"));
-
-        // Update status to RUNNING
-        submission.setStatus(SubmissionStatus.RUNNING);
-        submissionRepository.save(submission);
+        JudgeTask task = transactionTemplate.execute(status -> loadTask(submissionId));
+        if (task == null) {
+            // Judged already by the node whose lease on it expired
+            log.info("Submission {} already has a verdict, not judging it again", submissionId);
+            return;
+        }
+        Verdict verdict = new Verdict();
 
+        CompiledArtifact artifact = null;
         try {
-            // Get all test cases for the problem
-            List<TestCase> testCases = testCaseRepository.findByProblemId(submission.getProblem().getId());
-            
+            List<TestCase> testCases = task.testCases;
+            submissionEventService.progress(submissionId, 0, testCases.size());
+
             if (testCases.isEmpty()) {
                 // If no test cases, mark as accepted (for testing purposes)
-                submission.setStatus(SubmissionStatus.ACCEPTED);
-                submission.setExecutionTime(0L);
-                submission.setMemoryUsed(0L);
-                submissionRepository.save(submission);
+                verdict.accept(0L, 0L);
+                saveVerdict(task, verdict);
                 return;
             }
 
+            requireTestData(testCases);
+
+            // Compile once; every test case runs the same artifact
+            artifact = compile(task.code, task.language, task.problem);
+
             boolean allTestsPassed = true;
             long maxExecutionTime = 0L;
             long maxMemoryUsed = 0L;
 
-            // Execute code using Docker containers
-            for (TestCase testCase : testCases) {
-                ExecutionResult result = executeCode(
-                    submission.getCode(),
-                    submission.getLanguage(),
-                    testCase.getInput(),
-                    submission.getProblem().getTimeLimit(),
-                    submission.getProblem().getMemoryLimit(),
-                    submission.getProblem()
+            CompiledArtifact compiled = artifact;
+            int timeLimit = task.problem.getTimeLimit();
+            int memoryLimit = task.problem.getMemoryLimit();
+            List<ExecutionResult> results;
+            if (useBatchMode(compiled.getLanguage())) {
+                // One sandbox invocation runs every test case, in a single sandbox slot
+                results = testCaseScheduler.runInSlot(() -> runBatch(compiled, testCases, timeLimit, memoryLimit));
+                submissionEventService.progress(submissionId, results.size(), testCases.size());
+            } else {
+                AtomicInteger completed = new AtomicInteger();
+                // Fan the test cases out over the shared scheduler; runs after the first failing test are cancelled
+                results = testCaseScheduler.runInOrder(
+                    testCases.size(),
+                    (index, token) -> {
+                        ExecutionResult result = runTestCase(compiled, testCases.get(index), timeLimit, memoryLimit, token);
+                        submissionEventService.progress(submissionId, completed.incrementAndGet(), testCases.size());
+                        return result;
+                    },
+                    result -> result.verdict != SubmissionStatus.ACCEPTED
                 );
+            }
 
-                if (result.timedOut) {
-                    submission.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+            for (ExecutionResult result : results) {
+                if (result.verdict == SubmissionStatus.MEMORY_LIMIT_EXCEEDED) {
+                    verdict.status = SubmissionStatus.MEMORY_LIMIT_EXCEEDED;
+                    allTestsPassed = false;
+                    break;
+                }
+
+                if (result.verdict == SubmissionStatus.TIME_LIMIT_EXCEEDED) {
+                    verdict.status = SubmissionStatus.TIME_LIMIT_EXCEEDED;
+                    allTestsPassed = false;
+                    break;
+                }
+
+                if (result.verdict == SubmissionStatus.OUTPUT_LIMIT_EXCEEDED) {
+                    verdict.status = SubmissionStatus.OUTPUT_LIMIT_EXCEEDED;
                     allTestsPassed = false;
                     break;
                 }
 
-                if (result.error != null) {
-                    submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                    submission.setError(result.error);
+                if (result.verdict == SubmissionStatus.RUNTIME_ERROR) {
+                    verdict.status = SubmissionStatus.RUNTIME_ERROR;
+                    verdict.error = result.error;
                     allTestsPassed = false;
                     break;
                 }
 
-                // Compare output with expected output
-                if (!compareOutput(result.output, testCase.getExpectedOutput())) {
-                    submission.setStatus(SubmissionStatus.WRONG_ANSWER);
-                    submission.setOutput(result.output);
+                if (result.verdict == SubmissionStatus.WRONG_ANSWER) {
+                    verdict.status = SubmissionStatus.WRONG_ANSWER;
+                    verdict.output = result.output;
                     allTestsPassed = false;
                     break;
                 }
@@ -85,175 +162,529 @@ public class JudgeService {
             }
 
             if (allTestsPassed) {
-                submission.setStatus(SubmissionStatus.ACCEPTED);
-                submission.setExecutionTime(maxExecutionTime);
-                submission.setMemoryUsed(maxMemoryUsed);
+                verdict.accept(maxExecutionTime, maxMemoryUsed);
             }
 
-        } catch (Exception e) {
-            log.error("Error judging submission {}: {}", submissionId, e.getMessage());
-            submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-            submission.setError(e.getMessage());
+        } catch (CompilationException e) {
+            verdict.status = SubmissionStatus.COMPILATION_ERROR;
+            verdict.error = e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while judging submission " + submissionId, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (artifact != null) {
+                artifact.delete();
+            }
         }
 
+        saveVerdict(task, verdict);
+    }
+
+    private JudgeTask loadTask(Long submissionId) {
+        Submission submission = submissionRepository.findById(submissionId)
+            .orElseThrow(() -> new RuntimeException("Submission not found"));
+        if (submission.getStatus().isFinal()) {
+            return null;
+        }
+
+        // Update status to RUNNING
+        submission.setStatus(SubmissionStatus.RUNNING);
         submissionRepository.save(submission);
+
+        // Unproxied so the problem stays readable once the session is closed
+        Problem problem = (Problem) Hibernate.unproxy(submission.getProblem());
+        User user = submission.getUser();
+        return new JudgeTask(submissionId, submission.getCode(), submission.getLanguage(), problem,
+            testCaseRepository.findByProblemId(problem.getId()), submission.getContest().getId(), user.getId(),
+            user.getUsername(), submission.getSubmittedAt());
+    }
+
+    private void saveVerdict(JudgeTask task, Verdict verdict) {
+        Long submissionId = task.submissionId;
+        if (submissionRepository.saveVerdict(submissionId, verdict.status, verdict.executionTime, verdict.memoryUsed,
+                verdict.output, verdict.error) == 0) {
+            // Another node stored its verdict first and has already counted it
+            log.info("Submission {} got a verdict while being judged, dropping {}", submissionId, verdict.status);
+            return;
+        }
+        submissionEventService.publish(SubmissionEvent.builder()
+            .submissionId(submissionId)
+            .status(verdict.status)
+            .executionTime(verdict.executionTime)
+            .memoryUsed(verdict.memoryUsed)
+            .output(verdict.output)
+            .error(verdict.error)
+            .build());
+        if (verdict.status == SubmissionStatus.ACCEPTED) {
+            problemStatsService.recordAccepted(task.problem.getId());
+            leaderboardService.recordAccepted(task.contestId, task.userId, task.username, task.problem.getId(),
+                task.problem.getPoints(), task.submittedAt);
+        }
     }
 
-    private ExecutionResult executeCode(String code, String language, String input, int timeLimit, int memoryLimit, Problem problem) {
+    /**
+     * Builds the full program for the submission and compiles it if the language needs it.
+     * Throws {@link CompilationException} when the compiler rejects the code.
+     */
+    private CompiledArtifact compile(String code, String language, Problem problem) throws IOException, InterruptedException {
         // Normalize language values
         String lang = language == null ? "" : language.trim().toLowerCase();
-        
-        Path tempDir = null;
-        String containerName = "judge_" + UUID.randomUUID().toString().substring(0, 8);
-        
+
+        ProgramSpec program = buildProgram(lang, problem, code);
+        if (program == null) {
+            throw new RuntimeException("Unsupported language: " + lang);
+        }
+
+        Path artifactDir = Files.createTempDirectory("judge");
+        CompiledArtifact artifact = new CompiledArtifact(lang, artifactDir, program.runCmd);
         try {
-            // Create temporary directory for code files
-            tempDir = Files.createTempDirectory("judge");
-            
-            // Build executable code based on language
-            String fileName;
-            String compileCmd = null;
-            String runCmd;
-            
-            if ("java".equals(lang)) {
-                String className = "Solution";
-                fileName = className + ".java";
-                String fullCode = buildJavaProgramFromFunction(problem, className, code);
-                Files.write(tempDir.resolve(fileName), fullCode.getBytes());
-                compileCmd = "javac " + fileName;
-                runCmd = "java " + className;
-            } else if ("python".equals(lang)) {
-                fileName = "solution.py";
-                String fullCode = buildPythonProgramFromFunction(problem, code);
-                Files.write(tempDir.resolve(fileName), fullCode.getBytes());
-                runCmd = "python3 " + fileName;
-            } else if ("cpp".equals(lang)) {
-                fileName = "solution.cpp";
-                String fullCode = buildCppProgramFromFunction(problem, code);
-                Files.write(tempDir.resolve(fileName), fullCode.getBytes());
-                compileCmd = "g++ -o solution " + fileName;
-                runCmd = "./solution";
-            } else if ("javascript".equals(lang)) {
-                fileName = "solution.js";
-                String fullCode = buildJavaScriptProgramFromFunction(problem, code);
-                Files.write(tempDir.resolve(fileName), fullCode.getBytes());
-                runCmd = "node " + fileName;
+            Files.write(artifactDir.resolve(program.fileName), program.source.getBytes());
+
+            // Only Java and C++ have a compile step
+            if (program.compileCmd != null) {
+                String cacheKey = artifactCache.isEnabled() ? artifactCache.key(lang, program.source, program.compileCmd) : null;
+                if (cacheKey != null && artifactCache.copyTo(cacheKey, artifactDir)) {
+                    return artifact;
+                }
+
+                long timeoutMs = judgeProperties.getCompileTimeout().toMillis();
+                ExecutionResult result;
+                if (sandboxPool.isEnabled()) {
+                    Sandbox sandbox = sandboxPool.lease(lang, problem.getMemoryLimit());
+                    try {
+                        artifact.copyTo(sandbox.getWorkspace());
+                        result = runSandboxCommand(sandbox, false, program.compileCmd, null, timeoutMs, null, null);
+                        if (!result.timedOut && result.exitCode == 0) {
+                            JudgeFiles.copyContents(sandbox.getWorkspace(), artifactDir);
+                        }
+                    } finally {
+                        sandboxPool.release(sandbox);
+                    }
+                } else {
+                    String runId = "judge_" + UUID.randomUUID().toString().substring(0, 8) + "_compile";
+                    result = runUnpooledCommand(runId, artifactDir, null, program.compileCmd, null, timeoutMs, problem.getMemoryLimit(), null, null);
+                }
+
+                if (result.timedOut) {
+                    throw new CompilationException("Compilation timed out");
+                }
+                if (result.exitCode != 0) {
+                    throw new CompilationException(result.error != null ? result.error : "Compiler exited with code " + result.exitCode);
+                }
+                if (cacheKey != null) {
+                    artifactCache.put(cacheKey, artifactDir);
+                }
+            }
+            return artifact;
+        } catch (Exception e) {
+            artifact.delete();
+            throw e;
+        }
+    }
+
+    private ExecutionResult runTestCase(CompiledArtifact artifact, TestCase testCase, int timeLimit, int memoryLimit, CancellationToken token) {
+        ExecutionResult result = executeCode(artifact, stdinOf(testCase), expectedOutputOf(testCase), timeLimit, memoryLimit, token);
+        applyVerdict(result);
+        return result;
+    }
+
+    static void applyVerdict(ExecutionResult result) {
+        if (result.memoryLimitExceeded) {
+            result.verdict = SubmissionStatus.MEMORY_LIMIT_EXCEEDED;
+        } else if (result.timedOut) {
+            result.verdict = SubmissionStatus.TIME_LIMIT_EXCEEDED;
+        } else if (result.outputLimitExceeded) {
+            result.verdict = SubmissionStatus.OUTPUT_LIMIT_EXCEEDED;
+        } else if (result.mismatchAborted) {
+            // Killed on the first wrong token, whatever it would have done afterwards
+            result.verdict = SubmissionStatus.WRONG_ANSWER;
+        } else if (result.error != null) {
+            result.verdict = SubmissionStatus.RUNTIME_ERROR;
+        } else if (!result.outputMatched) {
+            result.verdict = SubmissionStatus.WRONG_ANSWER;
+        } else {
+            result.verdict = SubmissionStatus.ACCEPTED;
+        }
+    }
+
+    /**
+     * Replaces the host-side wall-clock figures with what {@code measure.sh} recorded inside
+     * the sandbox. Without a report (the run was killed from outside) the result is left as is.
+     */
+    private void applyUsage(ExecutionResult result, ResourceUsage usage, int timeLimit, int memoryLimit) {
+        if (usage == null) {
+            return;
+        }
+        concurrencyLimiter.recordRun(usage);
+        result.executionTime = usage.cpuTimeMs();
+        result.memoryUsed = usage.peakMemoryKb();
+        result.timedOut = result.timedOut || usage.timeLimitExceeded(timeLimit);
+        // Managed runtimes hit their own heap ceiling before the cgroup OOM killer steps in
+        result.memoryLimitExceeded = usage.memoryLimitExceeded(memoryLimit)
+            || (result.error != null && OUT_OF_MEMORY_MARKERS.stream().anyMatch(result.error::contains));
+    }
+
+    private int wallLimitSeconds(int timeLimit) {
+        return (int) Math.ceil(timeLimit * judgeProperties.getWallTimeFactor());
+    }
+
+    private StreamPump.Source stdinOf(TestCase testCase) {
+        String hash = testCase.getInputHash();
+        return hash == null ? null : out -> testDataStore.writeTo(hash, out);
+    }
+
+    /**
+     * Fails the run up front when test data is missing, instead of judging against nothing.
+     */
+    private void requireTestData(List<TestCase> testCases) {
+        for (TestCase testCase : testCases) {
+            String input = testCase.getInputHash();
+            String expected = testCase.getExpectedOutputHash();
+            if (expected == null || !testDataStore.contains(expected) || (input != null && !testDataStore.contains(input))) {
+                throw new IllegalStateException("Test data of test case " + testCase.getId() + " is missing");
+            }
+        }
+    }
+
+    private ByteBuffer expectedOutputOf(TestCase testCase) {
+        if (testCase.getExpectedOutputHash() == null) {
+            throw new IllegalStateException("Test case " + testCase.getId() + " has no expected output");
+        }
+        try {
+            return testDataStore.map(testCase.getExpectedOutputHash());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void prepareBatch(Path workspace, Path reportDir, List<TestCase> testCases) throws IOException {
+        BatchRunner.prepare(workspace, reportDir);
+        for (int i = 0; i < testCases.size(); i++) {
+            Path inputFile = BatchRunner.inputFile(workspace, i);
+            String hash = testCases.get(i).getInputHash();
+            if (hash == null) {
+                Files.createFile(inputFile);
             } else {
-                return new ExecutionResult(null, "Unsupported language: " + lang, 0L, 0L, false);
+                testDataStore.copyTo(hash, inputFile);
             }
-            
-            // Compile if needed (Java, C++)
-            if (compileCmd != null) {
-                ExecutionResult compileResult = runDockerCommand(
-                    containerName + "_compile",
-                    tempDir,
-                    compileCmd,
-                    null,
-                    5000, // 5 second compile timeout
-                    memoryLimit
-                );
-                
-                if (compileResult.error != null) {
-                    return new ExecutionResult(null, "Compilation Error: " + compileResult.error, 0L, 0L, false);
-                }
+        }
+    }
+
+    /**
+     * Runs every test case through {@code batch-runner.sh} in a single sandbox invocation.
+     * Frames are judged as they arrive and the runner is killed at the first failing test,
+     * so the returned list ends there just like on the fan-out path.
+     */
+    private List<ExecutionResult> runBatch(CompiledArtifact artifact, List<TestCase> testCases, int timeLimit, int memoryLimit)
+            throws IOException, InterruptedException {
+        int wallLimit = wallLimitSeconds(timeLimit);
+        String command = BatchRunner.command(artifact.getRunCommand(), timeLimit, wallLimit, testCases.size(), true,
+            judgeProperties.getOutput().getLimit().toBytes());
+        // Every test at its wall limit plus the kill grace period, plus process start-up
+        long timeoutMs = testCases.size() * (wallLimit + 1) * 1000L + BATCH_OVERHEAD_MS;
+
+        List<ExecutionResult> results = new ArrayList<>();
+        if (sandboxPool.isEnabled()) {
+            Sandbox sandbox = sandboxPool.lease(artifact.getLanguage(), memoryLimit);
+            try {
+                artifact.copyTo(sandbox.getWorkspace());
+                prepareBatch(sandbox.getWorkspace(), sandbox.getReportDir(), testCases);
+                Process process = sandboxPool.execMeasured(sandbox, command);
+                readBatch(process, testCases, timeLimit, memoryLimit, timeoutMs, () -> sandboxPool.killProcesses(sandbox), results);
+            } finally {
+                sandboxPool.release(sandbox);
+            }
+        } else {
+            Path workDir = Files.createTempDirectory("judge");
+            String runId = "judge_" + UUID.randomUUID().toString().substring(0, 8);
+            try {
+                Path reportDir = JudgeFiles.createPrivateDirectory(Sandbox.reportDirOf(workDir));
+                artifact.copyTo(workDir);
+                prepareBatch(workDir, reportDir, testCases);
+                Process process = sandboxBackend.runMeasured(runId, workDir, reportDir, command, memoryLimit);
+                readBatch(process, testCases, timeLimit, memoryLimit, timeoutMs, () -> sandboxBackend.kill(runId), results);
+            } finally {
+                JudgeFiles.deleteRecursively(workDir);
+                JudgeFiles.deleteRecursively(Sandbox.reportDirOf(workDir));
+            }
+        }
+
+        if (results.size() < testCases.size() && (results.isEmpty() || results.getLast().verdict == SubmissionStatus.ACCEPTED)) {
+            // The whole batch was killed before the next test reported back
+            ExecutionResult result = new ExecutionResult(null, null, timeLimit * 1000L, 0L, true);
+            applyVerdict(result);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private void readBatch(Process process, List<TestCase> testCases, int timeLimit, int memoryLimit, long timeoutMs,
+                           Runnable killRemote, List<ExecutionResult> results) throws IOException, InterruptedException {
+        Runnable kill = () -> {
+            process.destroyForcibly();
+            killRemote.run();
+        };
+        process.getOutputStream().close();
+        AtomicBoolean finished = new AtomicBoolean();
+        CompletableFuture.delayedExecutor(timeoutMs, TimeUnit.MILLISECONDS).execute(() -> {
+            if (!finished.get()) {
+                kill.run();
             }
-            
+        });
+        JudgeProperties.Output limits = judgeProperties.getOutput();
+        boolean completed = false;
+        try {
+            BatchRunner.read(process.getInputStream(), testCases.size(), limits.getLimit().toBytes(), (int) limits.getRetain().toBytes(),
+                index -> new OutputComparator(expectedOutputOf(testCases.get(index))),
+                frame -> {
+                    ExecutionResult result = batchResult(frame, timeLimit, memoryLimit);
+                    results.add(result);
+                    return result.verdict == SubmissionStatus.ACCEPTED;
+                });
+            if (!results.isEmpty() && results.getLast().verdict != SubmissionStatus.ACCEPTED) {
+                // Later tests are not run, as on the fan-out path
+                return;
+            }
+            process.waitFor();
+            completed = true;
+        } finally {
+            finished.set(true);
+            if (!completed) {
+                kill.run();
+            }
+        }
+    }
+
+    private ExecutionResult batchResult(BatchRunner.Frame frame, int timeLimit, int memoryLimit) {
+        String error = StreamPump.toText(frame.stderr());
+        ExecutionResult result = new ExecutionResult(
+            StreamPump.toText(frame.stdout()),
+            error.isEmpty() ? null : error,
+            frame.usage().wallTimeMs(),
+            0L,
+            false
+        );
+        result.exitCode = frame.exitCode();
+        result.outputLimitExceeded = frame.outputLimitExceeded();
+        result.outputMatched = frame.outputMatched();
+        applyUsage(result, frame.usage(), timeLimit, memoryLimit);
+        applyVerdict(result);
+        return result;
+    }
+
+    private boolean useBatchMode(String lang) {
+        return judgeProperties.getBatch().getLanguages().contains(lang);
+    }
+
+    private ExecutionResult executeCode(CompiledArtifact artifact, StreamPump.Source input, ByteBuffer expected, int timeLimit, int memoryLimit, CancellationToken token) {
+        if (token.isCancelled()) {
+            return new ExecutionResult(null, "Cancelled", 0L, 0L, false);
+        }
+
+        if (sandboxPool.isEnabled()) {
+            return executeInSandbox(artifact, input, expected, timeLimit, memoryLimit, token);
+        }
+
+        try {
+            return executeUnpooled(artifact, input, expected, timeLimit, memoryLimit, token);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ExecutionResult executeUnpooled(CompiledArtifact artifact, StreamPump.Source input, ByteBuffer expected, int timeLimit,
+                                            int memoryLimit, CancellationToken token) throws IOException {
+        String runId = "judge_" + UUID.randomUUID().toString().substring(0, 8);
+        String reportName = ResourceUsage.newReportName();
+        int wallLimit = wallLimitSeconds(timeLimit);
+        // Test cases share the artifact directory, so each run gets a report directory of its own
+        Path reportDir = Files.createTempDirectory("judge-report");
+        try {
+            ResourceUsage.install(reportDir);
+
             // Execute the code
             long startTime = System.currentTimeMillis();
-            ExecutionResult result = runDockerCommand(
-                containerName,
-                tempDir,
-                runCmd,
+            ExecutionResult result = runUnpooledCommand(
+                runId,
+                artifact.getDirectory(),
+                reportDir,
+                ResourceUsage.command(reportName, artifact.getRunCommand(), timeLimit, wallLimit),
                 input,
-                timeLimit * 1000L, // convert to milliseconds
-                memoryLimit
+                (wallLimit + 1) * 1000L + MEASURE_OVERHEAD_MS,
+                memoryLimit,
+                expected,
+                token
             );
-            
+
             result.executionTime = System.currentTimeMillis() - startTime;
+            if (!result.killed) {
+                applyUsage(result, ResourceUsage.read(reportDir.resolve(reportName)), timeLimit, memoryLimit);
+            }
             return result;
-            
-        } catch (Exception e) {
-            log.error("Error executing code: {}", e.getMessage());
-            return new ExecutionResult(null, e.getMessage(), 0L, 0L, false);
         } finally {
-            // Cleanup temporary files
-            if (tempDir != null) {
-                try {
-                    Files.walk(tempDir)
-                        .sorted((a, b) -> -a.compareTo(b)) // Delete files before directories
-                        .map(Path::toFile)
-                        .forEach(File::delete);
-                } catch (IOException e) {
-                    log.error("Error cleaning up temp files: {}", e.getMessage());
-                }
+            JudgeFiles.deleteRecursively(reportDir);
+        }
+    }
+
+    private ExecutionResult executeInSandbox(CompiledArtifact artifact, StreamPump.Source input, ByteBuffer expected, int timeLimit, int memoryLimit, CancellationToken token) {
+        Sandbox sandbox = null;
+        try {
+            sandbox = sandboxPool.lease(artifact.getLanguage(), memoryLimit);
+            artifact.copyTo(sandbox.getWorkspace());
+            ResourceUsage.install(sandbox.getReportDir());
+
+            String reportName = ResourceUsage.newReportName();
+            int wallLimit = wallLimitSeconds(timeLimit);
+            String command = ResourceUsage.command(reportName, artifact.getRunCommand(), timeLimit, wallLimit);
+
+            long startTime = System.currentTimeMillis();
+            ExecutionResult result = runSandboxCommand(sandbox, true, command, input, (wallLimit + 1) * 1000L + MEASURE_OVERHEAD_MS, expected, token);
+            result.executionTime = System.currentTimeMillis() - startTime;
+            if (!result.killed) {
+                applyUsage(result, ResourceUsage.read(sandbox.getReportDir().resolve(reportName)), timeLimit, memoryLimit);
+            }
+            return result;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a sandbox", e);
+        } catch (IOException e) {
+            // Like a lease timeout, a sandbox failure is the judge's problem rather than the program's
+            throw new UncheckedIOException(e);
+        } finally {
+            if (sandbox != null) {
+                sandboxPool.release(sandbox);
             }
         }
     }
+
+    private ProgramSpec buildProgram(String lang, Problem problem, String code) {
+        if ("java".equals(lang)) {
+            String className = "Solution";
+            String fileName = className + ".java";
+            return new ProgramSpec(fileName, buildJavaProgramFromFunction(problem, className, code),
+                "javac " + fileName, javaCommand() + className);
+        } else if ("python".equals(lang)) {
+            String fileName = "solution.py";
+            return new ProgramSpec(fileName, buildPythonProgramFromFunction(problem, code),
+                null, "python3 " + fileName);
+        } else if ("cpp".equals(lang)) {
+            String fileName = "solution.cpp";
+            return new ProgramSpec(fileName, buildCppProgramFromFunction(problem, code),
+                "g++ -o solution " + fileName, "./solution");
+        } else if ("javascript".equals(lang)) {
+            String fileName = "solution.js";
+            return new ProgramSpec(fileName, buildJavaScriptProgramFromFunction(problem, code),
+                null, "node " + fileName);
+        }
+        return null;
+    }
+
+    private String javaCommand() {
+        JudgeProperties.WarmStart warmStart = judgeProperties.getWarmStart();
+        return warmStart.isEnabled() ? "java " + warmStart.getJavaOptions() + " " : "java ";
+    }
+
+    private ExecutionResult runSandboxCommand(Sandbox sandbox, boolean measured, String command, StreamPump.Source input, long timeoutMs,
+                                              ByteBuffer expected, CancellationToken token) {
+        try {
+            Process process = measured ? sandboxPool.execMeasured(sandbox, command) : sandboxPool.exec(sandbox, command);
+            // Killing the client process (e.g. docker exec) does not necessarily stop the program inside the sandbox
+            return runProcess(process, input, timeoutMs, expected, token, () -> sandboxPool.killProcesses(sandbox));
+        } catch (IOException e) {
+            log.error("Sandbox execution error: {}", e.getMessage());
+            sandboxPool.killProcesses(sandbox);
+            throw new UncheckedIOException(e);
+        }
+    }
     
-    private ExecutionResult runDockerCommand(String containerName, Path workDir, String command, String input, long timeoutMs, int memoryLimitMb) {
+    /**
+     * @param reportDir where a measured run reports, null for an unmeasured one
+     */
+    private ExecutionResult runUnpooledCommand(String runId, Path workDir, Path reportDir, String command, StreamPump.Source input,
+                                               long timeoutMs, int memoryLimitMb, ByteBuffer expected, CancellationToken token) {
+        try {
+            Process process = reportDir != null
+                ? sandboxBackend.runMeasured(runId, workDir, reportDir, command, memoryLimitMb)
+                : sandboxBackend.run(runId, workDir, command, memoryLimitMb);
+            return runProcess(process, input, timeoutMs, expected, token, () -> sandboxBackend.kill(runId));
+        } catch (IOException e) {
+            log.error("Sandbox execution error: {}", e.getMessage());
+            sandboxBackend.kill(runId);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drives a started process to completion. stdin, stdout and stderr are pumped concurrently
+     * so large outputs cannot deadlock on a full pipe; stdout is capped and, when an expected
+     * answer is given, compared token by token while it streams.
+     */
+    private ExecutionResult runProcess(Process process, StreamPump.Source input, long timeoutMs, ByteBuffer expected,
+                                       CancellationToken token, Runnable killRemote) {
+        AtomicBoolean killed = new AtomicBoolean();
+        Runnable kill = () -> {
+            killed.set(true);
+            process.destroyForcibly();
+            killRemote.run();
+        };
+        JudgeProperties.Output limits = judgeProperties.getOutput();
+        int retain = (int) limits.getRetain().toBytes();
+        OutputComparator comparator = expected == null ? null : new OutputComparator(expected);
+        AtomicBoolean mismatchAborted = new AtomicBoolean();
+
+        StreamPump stdout = StreamPump.start(judgeThreads.io(), process.getInputStream(), limits.getLimit().toBytes(), retain, comparator, kill,
+            limits.isKillOnMismatch() ? () -> {
+                mismatchAborted.set(true);
+                kill.run();
+            } : null);
+        StreamPump stderr = StreamPump.start(judgeThreads.io(), process.getErrorStream(), Long.MAX_VALUE, retain, null, null, null);
+        StreamPump.feed(judgeThreads.io(), process.getOutputStream(), input);
+        if (token != null) {
+            token.onCancel(kill);
+        }
+
         try {
-            // Build docker run command with resource limits
-            ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run",
-                "--name", containerName,
-                "--rm", // Auto-remove container after execution
-                "--network", "none", // Disable network access for security
-                "--memory", memoryLimitMb + "m", // Memory limit
-                "--cpus", "1", // CPU limit
-                "--user", "coderunner", // Run as non-root user
-                "-v", workDir.toAbsolutePath() + ":/workspace", // Mount code directory
-                "-w", "/workspace",
-                "shodh-judge:latest", // Our custom judge image
-                "sh", "-c", command
-            );
-            
-            pb.redirectErrorStream(false);
-            Process process = pb.start();
-            
-            // Write input to stdin if provided
-            if (input != null && !input.isEmpty()) {
-                try (PrintWriter writer = new PrintWriter(process.getOutputStream())) {
-                    writer.print(input);
-                    writer.flush();
-                }
-            }
-            
-            // Wait for execution with timeout
             boolean finished = process.waitFor(timeoutMs, TimeUnit.MILLISECONDS);
-            
+
             if (!finished) {
-                // Kill container if timeout
-                process.destroyForcibly();
-                killContainer(containerName);
-                return new ExecutionResult(null, null, timeoutMs, 0L, true);
+                kill.run();
+                ExecutionResult result = new ExecutionResult(null, null, timeoutMs, 0L, true);
+                result.killed = true;
+                return result;
             }
-            
-            // Read output and error
-            String output = readStream(process.getInputStream());
-            String error = readStream(process.getErrorStream());
-            
-            return new ExecutionResult(
-                output,
+
+            // The pipes close right after exit; the bound only guards against a wedged docker client
+            stdout.await(STREAM_DRAIN_TIMEOUT_MS);
+            stderr.await(STREAM_DRAIN_TIMEOUT_MS);
+
+            String error = stderr.text();
+            ExecutionResult result = new ExecutionResult(
+                stdout.text(),
                 error.isEmpty() ? null : error,
                 timeoutMs,
-                0L, // Memory usage tracking would require additional Docker API calls
+                0L,
                 false
             );
-            
-        } catch (Exception e) {
-            log.error("Docker execution error: {}", e.getMessage());
-            killContainer(containerName);
-            return new ExecutionResult(null, "Execution failed: " + e.getMessage(), 0L, 0L, false);
-        }
-    }
-    
-    private void killContainer(String containerName) {
-        try {
-            new ProcessBuilder("docker", "kill", containerName)
-                .start()
-                .waitFor(2, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.warn("Failed to kill container {}: {}", containerName, e.getMessage());
+            result.exitCode = process.exitValue();
+            result.outputLimitExceeded = stdout.isLimitExceeded();
+            result.mismatchAborted = mismatchAborted.get();
+            result.outputMatched = comparator != null && !stdout.isLimitExceeded() && comparator.finish();
+            result.killed = killed.get();
+            return result;
+
+        } catch (InterruptedException e) {
+            kill.run();
+            Thread.currentThread().interrupt();
+            ExecutionResult result = new ExecutionResult(null, "Execution interrupted", 0L, 0L, false);
+            result.killed = true;
+            return result;
+        } finally {
+            if (token != null) {
+                token.clear();
+            }
         }
     }
 
@@ -359,35 +790,77 @@ public class JudgeService {
         return sb.toString();
     }
 
-    private String readStream(InputStream stream) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line).append("\n");
-            }
+    private static class ProgramSpec {
+        final String fileName;
+        final String source;
+        final String compileCmd;
+        final String runCmd;
+
+        ProgramSpec(String fileName, String source, String compileCmd, String runCmd) {
+            this.fileName = fileName;
+            this.source = source;
+            this.compileCmd = compileCmd;
+            this.runCmd = runCmd;
+        }
+    }
+
+    /**
+     * Detached copy of a submission and its test cases, safe to use without a session.
+     */
+    private static class JudgeTask {
+        final Long submissionId;
+        final String code;
+        final String language;
+        final Problem problem;
+        final List<TestCase> testCases;
+        // For the leaderboard
+        final Long contestId;
+        final Long userId;
+        final String username;
+        final LocalDateTime submittedAt;
+
+        JudgeTask(Long submissionId, String code, String language, Problem problem, List<TestCase> testCases,
+                  Long contestId, Long userId, String username, LocalDateTime submittedAt) {
+            this.submissionId = submissionId;
+            this.code = code;
+            this.language = language;
+            this.problem = problem;
+            this.testCases = testCases;
+            this.contestId = contestId;
+            this.userId = userId;
+            this.username = username;
+            this.submittedAt = submittedAt;
         }
-        return sb.toString().trim();
     }
 
-    private boolean compareOutput(String actual, String expected) {
-        if (actual == null || expected == null) {
-            return actual == expected;
+    private static class Verdict {
+        SubmissionStatus status;
+        Long executionTime;
+        Long memoryUsed;
+        String output;
+        String error;
+
+        void accept(long executionTime, long memoryUsed) {
+            this.status = SubmissionStatus.ACCEPTED;
+            this.executionTime = executionTime;
+            this.memoryUsed = memoryUsed;
         }
-        
-        // Normalize whitespace and compare
-        String normalizedActual = actual.trim().replaceAll("\\s+", " ");
-        String normalizedExpected = expected.trim().replaceAll("\\s+", " ");
-        
-        return normalizedActual.equals(normalizedExpected);
     }
 
-    private static class ExecutionResult {
+    static class ExecutionResult {
         String output;
         String error;
         long executionTime;
         long memoryUsed;
         boolean timedOut;
+        int exitCode = -1;
+        boolean outputLimitExceeded;
+        boolean outputMatched;
+        boolean mismatchAborted;
+        boolean memoryLimitExceeded;
+        // Stopped by the judge, so there is no usage report to read
+        boolean killed;
+        SubmissionStatus verdict;
 
         ExecutionResult(String output, String error, long executionTime, long memoryUsed, boolean timedOut) {
             this.output = output;
@@ -1,113 +1,313 @@
 package com.shodh.backend.service;
 
+import com.shodh.backend.dto.LeaderboardChange;
+import com.shodh.backend.dto.LeaderboardDelta;
 import com.shodh.backend.dto.LeaderboardEntry;
 import com.shodh.backend.dto.LeaderboardResponse;
-import com.shodh.backend.model.*;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.backend.config.LeaderboardProperties;
+import com.shodh.backend.leaderboard.ContestStandings;
+import com.shodh.backend.leaderboard.LeaderboardSnapshot;
+import com.shodh.backend.leaderboard.RankChange;
+import com.shodh.backend.leaderboard.Standing;
+import com.shodh.backend.model.Contest;
 import com.shodh.backend.repository.ContestRepository;
 import com.shodh.backend.repository.SubmissionRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Serves contest leaderboards from in-memory {@link ContestStandings}. A contest's standings
+ * are built from its accepted submissions the first time they are asked for; after that the
+ * judge feeds every ACCEPTED verdict in and reads never touch the database. Standings of a
+ * contest that has ended are dropped once nobody reads them for a while.
+ */
 @Service
-@RequiredArgsConstructor
-@Transactional(readOnly = true)
+@Slf4j
 public class LeaderboardService {
+    private static final int MAX_CACHED_PAGES = 32;
+
     private final ContestRepository contestRepository;
     private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Duration finishedIdleTimeout;
+    private final Map<Long, ContestStandings> standings = new ConcurrentHashMap<>();
+    // contestId -> "offset:limit" -> serialized page of the latest version asked for
+    private final Map<Long, Map<String, CachedPage>> snapshots = new ConcurrentHashMap<>();
+    // contestId -> System.nanoTime() of the last read of its standings
+    private final Map<Long, Long> lastRead = new ConcurrentHashMap<>();
+    private final AtomicLong pageReads = new AtomicLong();
+
+    public LeaderboardService(ContestRepository contestRepository, SubmissionRepository submissionRepository,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              LeaderboardProperties properties) {
+        this.contestRepository = contestRepository;
+        this.submissionRepository = submissionRepository;
+        this.objectMapper = objectMapper;
+        this.finishedIdleTimeout = properties.getFinishedIdleTimeout();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     public LeaderboardResponse getLeaderboard(Long contestId) {
-        Contest contest = contestRepository.findById(contestId)
-            .orElseThrow(() -> new RuntimeException("Contest not found"));
-
-        // Get all submissions for the contest
-        List<Submission> submissions = submissionRepository.findByContestId(contestId);
-
-        // Group submissions by user and problem to calculate scores
-        Map<User, UserScore> userScores = calculateUserScores(submissions, contest);
-
-        // Convert to leaderboard entries and sort
-        List<LeaderboardEntry> entries = userScores.entrySet().stream()
-            .map(entry -> createLeaderboardEntry(entry.getKey(), entry.getValue()))
-            .sorted((a, b) -> {
-                // Sort by: 1. Problems solved (desc), 2. Total points (desc), 3. Total time (asc)
-                int problemsCompare = b.getProblemsSolved().compareTo(a.getProblemsSolved());
-                if (problemsCompare != 0) return problemsCompare;
-                
-                int pointsCompare = b.getTotalPoints().compareTo(a.getTotalPoints());
-                if (pointsCompare != 0) return pointsCompare;
-                
-                return a.getTotalTime().compareTo(b.getTotalTime());
-            })
-            .collect(Collectors.toList());
-
-        // Assign ranks
-        for (int i = 0; i < entries.size(); i++) {
-            entries.get(i).setRank(i + 1);
+        return getLeaderboard(contestId, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Entries {@code offset+1 .. offset+limit} of the board (top-K is offset 0), read from
+     * the ranking tree in O(log n + limit).
+     */
+    public LeaderboardResponse getLeaderboard(Long contestId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new RuntimeException("offset and limit must not be negative");
+        }
+        ContestStandings board = standingsOf(contestId);
+        List<Standing> page;
+        int total;
+        synchronized (board) {
+            page = board.range(offset, limit);
+            total = board.size();
         }
+        return buildResponse(board, page, offset, total, null);
+    }
 
-        return LeaderboardResponse.builder()
-            .contestId(contest.getId())
-            .contestTitle(contest.getTitle())
-            .lastUpdated(LocalDateTime.now())
-            .entries(entries)
+    /**
+     * The page as JSON bytes, serialized only once per version of the standings. The ETag
+     * names the standings instance, version and page, so it changes exactly when the bytes do.
+     * Up to {@value #MAX_CACHED_PAGES} pages are kept per contest, least recently read evicted first.
+     */
+    public LeaderboardSnapshot getSnapshot(Long contestId, int offset, int limit) {
+        ContestStandings board = standingsOf(contestId);
+        Map<String, CachedPage> pages = snapshots.computeIfAbsent(contestId, id -> new ConcurrentHashMap<>());
+        String key = offset + ":" + limit;
+        CachedPage cached = pages.get(key);
+        if (cached != null && cached.isCurrent(board)) {
+            cached.lastRead = pageReads.incrementAndGet();
+            return cached.snapshot;
+        }
+        // One request serializes a new version; concurrent ones for the same page wait for it
+        cached = pages.compute(key, (k, current) -> {
+            if (current != null && current.isCurrent(board)) {
+                return current;
+            }
+            long version;
+            LeaderboardResponse response;
+            synchronized (board) {
+                version = board.version();
+                response = getLeaderboard(contestId, offset, limit);
+            }
+            String etag = "\"" + Long.toHexString(board.epoch()) + "-" + version + "-" + offset + "-" + limit + "\"";
+            try {
+                return new CachedPage(board, new LeaderboardSnapshot(version, etag, objectMapper.writeValueAsBytes(response)));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to serialize leaderboard", e);
+            }
+        });
+        cached.lastRead = pageReads.incrementAndGet();
+        // Arbitrary offsets must not grow the cache without bound
+        while (pages.size() > MAX_CACHED_PAGES) {
+            pages.entrySet().stream()
+                .min(Comparator.comparingLong(page -> page.getValue().lastRead))
+                .ifPresent(eldest -> pages.remove(eldest.getKey(), eldest.getValue()));
+        }
+        return cached.snapshot;
+    }
+
+    /**
+     * Rank changes of a loaded contest since the previous call, or null if there were none.
+     */
+    public LeaderboardDelta drainDelta(Long contestId) {
+        ContestStandings board = standings.get(contestId);
+        if (board == null) {
+            return null;
+        }
+        List<RankChange> changes;
+        long version;
+        int total;
+        LocalDateTime lastChangedAt;
+        synchronized (board) {
+            changes = board.drainChanges();
+            version = board.version();
+            total = board.size();
+            lastChangedAt = board.lastChangedAt();
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+        List<LeaderboardChange> entries = new ArrayList<>(changes.size());
+        for (RankChange change : changes) {
+            Standing standing = change.standing();
+            entries.add(LeaderboardChange.builder()
+                .username(standing.username())
+                .problemsSolved(standing.problemsSolved())
+                .totalPoints(standing.totalPoints())
+                .totalTime(standing.penaltyMinutes() * 60 * 1000)
+                .oldRank(change.oldRank())
+                .newRank(change.newRank())
+                .build());
+        }
+        return LeaderboardDelta.builder()
+            .contestId(contestId)
+            .version(version)
+            .totalEntries(total)
+            .lastUpdated(lastChangedAt)
+            .changes(entries)
             .build();
     }
 
-    private Map<User, UserScore> calculateUserScores(List<Submission> submissions, Contest contest) {
-        Map<User, UserScore> userScores = new HashMap<>();
-        
-        // Get contest start time for penalty calculation
-        LocalDateTime contestStart = contest.getStartTime();
+    /**
+     * The user's rank with up to {@code neighbors} entries on either side of them.
+     */
+    public LeaderboardResponse getUserStanding(Long contestId, String username, int neighbors) {
+        ContestStandings board = standingsOf(contestId);
+        int rank;
+        int offset;
+        List<Standing> page;
+        int total;
+        synchronized (board) {
+            rank = board.rankOf(username);
+            if (rank == 0) {
+                throw new RuntimeException("User has not solved any problem in this contest");
+            }
+            offset = Math.max(0, rank - 1 - neighbors);
+            page = board.range(offset, rank - offset + neighbors);
+            total = board.size();
+        }
+        return buildResponse(board, page, offset, total, rank);
+    }
 
-        for (Submission submission : submissions) {
-            if (submission.getStatus() != SubmissionStatus.ACCEPTED) {
-                continue;
+    /**
+     * Called by the judge once an ACCEPTED verdict is committed. Standings that are not
+     * loaded yet are skipped; they will include the verdict when they are built.
+     */
+    public void recordAccepted(Long contestId, Long userId, String username, Long problemId, int points,
+                               LocalDateTime submittedAt) {
+        // Waits for a build of the same contest that is in progress, so the verdict is never lost in between
+        standings.computeIfPresent(contestId, (id, board) -> {
+            board.accept(userId, username, problemId, points, submittedAt);
+            return board;
+        });
+    }
+
+    /**
+     * Re-applies every accepted submission of the loaded contests. Acceptances already known
+     * change nothing, so this only adds verdicts that were judged on another node.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.resync-interval:1m}")
+    public void resync() {
+        evictFinished();
+        for (ContestStandings board : standings.values()) {
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> applyAccepted(board));
+            } catch (RuntimeException e) {
+                log.warn("Leaderboard resync of contest {} failed: {}", board.getContestId(), e.getMessage());
             }
+        }
+    }
 
-            User user = submission.getUser();
-            Problem problem = submission.getProblem();
-            
-            UserScore userScore = userScores.computeIfAbsent(user, k -> new UserScore());
-            
-            // Check if user already solved this problem
-            if (!userScore.solvedProblems.contains(problem.getId())) {
-                userScore.solvedProblems.add(problem.getId());
-                userScore.totalPoints += problem.getPoints();
-                
-                // Calculate time penalty (minutes from contest start)
-                long minutesFromStart = java.time.Duration.between(contestStart, submission.getSubmittedAt()).toMinutes();
-                userScore.totalTime += minutesFromStart;
-                
-                // Update last accepted submission time
-                if (userScore.lastAcceptedAt == null || submission.getSubmittedAt().isAfter(userScore.lastAcceptedAt)) {
-                    userScore.lastAcceptedAt = submission.getSubmittedAt();
-                }
+    /**
+     * Drops the standings and pages of contests that have ended, or were deleted, and have not
+     * been read for {@code leaderboard.finished-idle-timeout}. A later read rebuilds them.
+     */
+    private void evictFinished() {
+        if (standings.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> endTimes = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Contest contest : contestRepository.findAllById(standings.keySet())) {
+                endTimes.put(contest.getId(), contest.getEndTime());
+            }
+        });
+        LocalDateTime now = LocalDateTime.now();
+        long idleNanos = finishedIdleTimeout.toNanos();
+        for (Long contestId : standings.keySet()) {
+            LocalDateTime endTime = endTimes.get(contestId);
+            Long readAt = lastRead.get(contestId);
+            boolean finished = endTime == null || endTime.isBefore(now);
+            if (finished && (readAt == null || System.nanoTime() - readAt >= idleNanos)) {
+                standings.remove(contestId);
+                snapshots.remove(contestId);
+                lastRead.remove(contestId);
+                log.info("Dropped the leaderboard of finished contest {}", contestId);
             }
         }
+    }
+
+    private ContestStandings standingsOf(Long contestId) {
+        lastRead.put(contestId, System.nanoTime());
+        return standings.computeIfAbsent(contestId, id -> readOnlyTransaction.execute(status -> {
+            Contest contest = contestRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Contest not found"));
+            ContestStandings board = new ContestStandings(contest.getId(), contest.getTitle(), contest.getStartTime());
+            applyAccepted(board);
+            // Streams start from a snapshot, so the initial build is not a change
+            board.drainChanges();
+            return board;
+        }));
+    }
+
+    private void applyAccepted(ContestStandings board) {
+        for (SubmissionRepository.AcceptedView accepted : submissionRepository.findAcceptedByContestId(board.getContestId())) {
+            board.accept(accepted.getUserId(), accepted.getUsername(), accepted.getProblemId(), accepted.getPoints(),
+                accepted.getSubmittedAt());
+        }
+    }
+
+    private LeaderboardResponse buildResponse(ContestStandings board, List<Standing> page, int offset, int total,
+                                              Integer userRank) {
+        List<LeaderboardEntry> entries = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            entries.add(createLeaderboardEntry(page.get(i), offset + i + 1));
+        }
 
-        return userScores;
+        return LeaderboardResponse.builder()
+            .contestId(board.getContestId())
+            .contestTitle(board.getContestTitle())
+            .lastUpdated(board.lastChangedAt())
+            .entries(entries)
+            .totalEntries(total)
+            .offset(offset)
+            .userRank(userRank)
+            .build();
     }
 
-    private LeaderboardEntry createLeaderboardEntry(User user, UserScore score) {
+    private LeaderboardEntry createLeaderboardEntry(Standing standing, int rank) {
         return LeaderboardEntry.builder()
-            .username(user.getUsername())
-            .problemsSolved(score.solvedProblems.size())
-            .totalPoints(score.totalPoints)
-            .totalTime(score.totalTime * 60 * 1000) // Convert minutes to milliseconds
-            .lastAcceptedAt(score.lastAcceptedAt)
+            .rank(rank)
+            .username(standing.username())
+            .problemsSolved(standing.problemsSolved())
+            .totalPoints(standing.totalPoints())
+            .totalTime(standing.penaltyMinutes() * 60 * 1000) // Convert minutes to milliseconds
+            .lastAcceptedAt(standing.lastAcceptedAt())
             .build();
     }
 
-    private static class UserScore {
-        Set<Long> solvedProblems = new HashSet<>();
-        int totalPoints = 0;
-        long totalTime = 0; // in minutes
-        LocalDateTime lastAcceptedAt = null;
+    private static final class CachedPage {
+        final ContestStandings board;
+        final LeaderboardSnapshot snapshot;
+        // pageReads when last served
+        volatile long lastRead;
+
+        CachedPage(ContestStandings board, LeaderboardSnapshot snapshot) {
+            this.board = board;
+            this.snapshot = snapshot;
+        }
+
+        // A rebuilt board can reach the same version with other contents
+        boolean isCurrent(ContestStandings current) {
+            return board == current && snapshot.version() == current.version();
+        }
     }
 }
-
@@ -0,0 +1,239 @@
+package com.shodh.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.backend.config.LeaderboardProperties;
+import com.shodh.backend.dto.LeaderboardDelta;
+import com.shodh.backend.judge.JudgeThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event streams of leaderboard changes. A subscriber first gets a
+ * {@code snapshot} event with the top of the board, then a {@code delta} event per
+ * coalescing interval in which the standings changed.
+ *
+ * <p>A delta is serialized once and offered to every subscriber's bounded queue; each
+ * subscriber's queue is written out by its own task, so a slow client only holds up itself.
+ * A subscriber whose queue overflows loses its pending deltas and is sent a fresh snapshot
+ * instead.
+ */
+@Service
+@Slf4j
+public class LeaderboardStreamService {
+    private final LeaderboardService leaderboardService;
+    private final ObjectMapper objectMapper;
+    private final LeaderboardProperties.Stream properties;
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Sends block on slow clients; with judge.virtual-threads thousands of those stay cheap
+    private final ExecutorService sender;
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong deltasPublished = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+
+    public LeaderboardStreamService(LeaderboardService leaderboardService, ObjectMapper objectMapper,
+                                    LeaderboardProperties properties, JudgeThreads judgeThreads) {
+        this.leaderboardService = leaderboardService;
+        this.objectMapper = objectMapper;
+        this.properties = properties.getStream();
+        this.sender = judgeThreads.newExecutor("Leaderboard-Stream-");
+    }
+
+    /**
+     * Opens a stream whose snapshots hold the top {@code top} entries.
+     */
+    public SseEmitter subscribe(Long contestId, int top) {
+        return subscribe(contestId, top, new SseEmitter(properties.getTimeout().toMillis()));
+    }
+
+    SseEmitter subscribe(Long contestId, int top, SseEmitter emitter) {
+        // Fails for unknown contests before anything is registered
+        leaderboardService.getSnapshot(contestId, 0, top);
+        Subscriber subscriber = new Subscriber(contestId, top, emitter, properties.getQueueCapacity());
+        opened.incrementAndGet();
+
+        subscribers.computeIfAbsent(contestId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // Registered before the snapshot is taken, so no change falls in between
+        subscriber.resync.set(true);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /**
+     * Publishes one delta per contest with changes since the previous flush.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.stream.coalesce-interval:1s}")
+    public void flush() {
+        for (Map.Entry<Long, List<Subscriber>> contest : subscribers.entrySet()) {
+            LeaderboardDelta delta = leaderboardService.drainDelta(contest.getKey());
+            if (delta == null) {
+                continue;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(delta);
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize leaderboard delta of contest {}: {}", contest.getKey(), e.getMessage());
+                continue;
+            }
+            deltasPublished.incrementAndGet();
+            Frame frame = new Frame("delta", delta.getVersion(), json);
+            for (Subscriber subscriber : contest.getValue()) {
+                offer(subscriber, frame);
+            }
+        }
+    }
+
+    /**
+     * Keeps idle streams alive through proxies with a comment line.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.stream.keep-alive-interval:15s}")
+    public void keepAlive() {
+        for (List<Subscriber> contestSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : contestSubscribers) {
+                offer(subscriber, Frame.KEEP_ALIVE);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watchedContests", subscribers.size());
+        stats.put("openStreams", subscribers.values().stream().mapToInt(List::size).sum());
+        stats.put("opened", opened.get());
+        stats.put("deltasPublished", deltasPublished.get());
+        stats.put("framesSent", framesSent.get());
+        stats.put("resyncs", resyncs.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void offer(Subscriber subscriber, Frame frame) {
+        if (!subscriber.queue.offer(frame) && frame != Frame.KEEP_ALIVE) {
+            subscriber.resync.set(true);
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Writes out the subscriber's queue; at most one drain runs per subscriber at a time.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (subscriber.resync.getAndSet(false)) {
+                    subscriber.queue.clear();
+                    if (!sendSnapshot(subscriber)) {
+                        return;
+                    }
+                    continue;
+                }
+                Frame frame = subscriber.queue.poll();
+                if (frame == null) {
+                    break;
+                }
+                // Already contained in the snapshot this subscriber got
+                if (frame.version() <= subscriber.snapshotVersion) {
+                    continue;
+                }
+                if (!send(subscriber, frame)) {
+                    return;
+                }
+            }
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        // Something arrived between the last poll and clearing the flag
+        if (!subscriber.queue.isEmpty() || subscriber.resync.get()) {
+            schedule(subscriber);
+        }
+    }
+
+    private boolean sendSnapshot(Subscriber subscriber) {
+        try {
+            var snapshot = leaderboardService.getSnapshot(subscriber.contestId, 0, subscriber.top);
+            if (subscriber.snapshotVersion >= 0) {
+                resyncs.incrementAndGet();
+            }
+            subscriber.snapshotVersion = snapshot.version();
+            return send(subscriber, new Frame("snapshot", snapshot.version(),
+                new String(snapshot.json(), StandardCharsets.UTF_8)));
+        } catch (RuntimeException e) {
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private boolean send(Subscriber subscriber, Frame frame) {
+        try {
+            if (frame == Frame.KEEP_ALIVE) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            } else {
+                subscriber.emitter.send(SseEmitter.event()
+                    .name(frame.name())
+                    .data(frame.json(), MediaType.APPLICATION_JSON));
+                framesSent.incrementAndGet();
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            subscriber.emitter.completeWithError(e);
+            remove(subscriber);
+            return false;
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.contestId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private record Frame(String name, long version, String json) {
+        static final Frame KEEP_ALIVE = new Frame(null, Long.MAX_VALUE, null);
+    }
+
+    private static final class Subscriber {
+        final Long contestId;
+        final int top;
+        final SseEmitter emitter;
+        final BlockingQueue<Frame> queue;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean resync = new AtomicBoolean();
+        // Only touched by the drain task; -1 until the first snapshot
+        long snapshotVersion = -1;
+
+        Subscriber(Long contestId, int top, SseEmitter emitter, int capacity) {
+            this.contestId = contestId;
+            this.top = top;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+}
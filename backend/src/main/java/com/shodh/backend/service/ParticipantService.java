@@ -0,0 +1,86 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.repository.ContestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contest registration. Users known to be registered are remembered per contest, so a
+ * submission by a registered user costs a set lookup; anyone else is registered with a
+ * single insert-if-absent into {@code contest_participants}. Participant counts are read
+ * from the database once per contest and then maintained here.
+ */
+@Service
+@Slf4j
+public class ParticipantService {
+    private final ContestRepository contestRepository;
+    private final TransactionTemplate newTransaction;
+    private final Map<Long, Set<Long>> members = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    public ParticipantService(ContestRepository contestRepository, PlatformTransactionManager transactionManager) {
+        this.contestRepository = contestRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Registers the user for the contest, if not already, in a transaction of its own. Call it
+     * outside other transactions, so registering never holds a second connection. The contest
+     * is checked to exist before anything is written.
+     */
+    public void register(Long contestId, Long userId) {
+        Set<Long> registered = members.get(contestId);
+        if (registered == null) {
+            // Once per contest and node; only contests that exist get a member set
+            if (!contestRepository.existsById(contestId)) {
+                throw new RuntimeException("Contest not found");
+            }
+            registered = members.computeIfAbsent(contestId, id -> ConcurrentHashMap.newKeySet());
+        }
+        if (registered.contains(userId)) {
+            return;
+        }
+        boolean inserted;
+        try {
+            inserted = Boolean.TRUE.equals(newTransaction.execute(status ->
+                contestRepository.insertParticipant(contestId, userId) > 0));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent first submission registered the user
+            inserted = false;
+        }
+        registered.add(userId);
+        AtomicLong count = counts.get(contestId);
+        if (inserted && count != null) {
+            count.incrementAndGet();
+        }
+    }
+
+    public long count(Long contestId) {
+        return counts.computeIfAbsent(contestId, id -> new AtomicLong(contestRepository.countParticipants(id))).get();
+    }
+
+    /**
+     * Re-reads the counts of the contests asked for so far, adding registrations from other nodes.
+     */
+    @Scheduled(fixedDelayString = "${contest.participant-resync-interval:30s}")
+    public void resync() {
+        for (Map.Entry<Long, AtomicLong> entry : counts.entrySet()) {
+            try {
+                entry.getValue().set(contestRepository.countParticipants(entry.getKey()));
+            } catch (RuntimeException e) {
+                log.warn("Participant count resync of contest {} failed: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+}
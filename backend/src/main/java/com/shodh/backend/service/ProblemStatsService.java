@@ -0,0 +1,198 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.model.ProblemStats;
+import com.shodh.backend.repository.ProblemRepository;
+import com.shodh.backend.repository.ProblemStatsRepository;
+import com.shodh.backend.repository.SubmissionRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Submission and acceptance counts per problem. New submissions and ACCEPTED verdicts bump
+ * in-memory {@link LongAdder}s, which are added to the {@code problem_stats} rows in one
+ * batch per flush interval; reads return the last flushed counts plus what this node has
+ * not flushed yet, without touching submissions.
+ */
+@Service
+@Slf4j
+public class ProblemStatsService {
+    private final ProblemStatsRepository statsRepository;
+    private final ProblemRepository problemRepository;
+    private final SubmissionRepository submissionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, Counters> counters = new ConcurrentHashMap<>();
+
+    public ProblemStatsService(ProblemStatsRepository statsRepository, ProblemRepository problemRepository,
+                               SubmissionRepository submissionRepository, PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.problemRepository = problemRepository;
+        this.submissionRepository = submissionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Creates the counter rows of problems that predate them from their submissions. Runs
+     * before the web server accepts requests, so no submission is counted twice.
+     */
+    @PostConstruct
+    public void seed() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<Long> existing = new HashSet<>();
+            statsRepository.findAll().forEach(stats -> existing.add(stats.getProblemId()));
+            List<Long> missing = new ArrayList<>();
+            for (var problem : problemRepository.findAll()) {
+                if (!existing.contains(problem.getId())) {
+                    missing.add(problem.getId());
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            Map<Long, ProblemStats> rows = new LinkedHashMap<>();
+            for (Long problemId : missing) {
+                rows.put(problemId, new ProblemStats(problemId, 0L, 0L));
+            }
+            for (Object[] row : submissionRepository.countByProblemIds(missing)) {
+                ProblemStats stats = rows.get((Long) row[0]);
+                stats.setTotalSubmissions(((Number) row[1]).longValue());
+                stats.setAcceptedSubmissions(((Number) row[2]).longValue());
+            }
+            statsRepository.saveAll(rows.values());
+            log.info("Seeded submission counters of {} problems", rows.size());
+        });
+    }
+
+    /**
+     * Counts a new submission once the current transaction, if any, commits.
+     */
+    public void recordSubmitted(Long problemId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters(problemId).submitted.increment();
+                }
+            });
+        } else {
+            counters(problemId).submitted.increment();
+        }
+    }
+
+    public void recordAccepted(Long problemId) {
+        counters(problemId).accepted.increment();
+    }
+
+    /**
+     * Counts of the given problems; rows not seen before are read in one query.
+     */
+    public Map<Long, Counts> get(Collection<Long> problemIds) {
+        List<Long> unloaded = new ArrayList<>();
+        for (Long problemId : problemIds) {
+            if (!counters(problemId).loaded) {
+                unloaded.add(problemId);
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            load(unloaded);
+        }
+        Map<Long, Counts> counts = new HashMap<>();
+        for (Long problemId : problemIds) {
+            Counters counter = counters(problemId);
+            counts.put(problemId, new Counts(
+                counter.flushedSubmitted.get() + counter.submitted.sum(),
+                counter.flushedAccepted.get() + counter.accepted.sum()));
+        }
+        return counts;
+    }
+
+    /**
+     * Adds the counts gathered since the last flush to the database in one transaction, then
+     * re-reads the rows so counts from other nodes show up too.
+     */
+    @Scheduled(fixedDelayString = "${problem-stats.flush-interval:5s}")
+    public void flush() {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (Map.Entry<Long, Counters> entry : counters.entrySet()) {
+            Counters counter = entry.getValue();
+            long submitted = counter.submitted.sumThenReset();
+            long accepted = counter.accepted.sumThenReset();
+            if (submitted != 0 || accepted != 0) {
+                counter.flushedSubmitted.addAndGet(submitted);
+                counter.flushedAccepted.addAndGet(accepted);
+                deltas.put(entry.getKey(), new long[] {submitted, accepted});
+            }
+        }
+        if (!deltas.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Map.Entry<Long, long[]> delta : deltas.entrySet()) {
+                        long[] counts = delta.getValue();
+                        if (statsRepository.increment(delta.getKey(), counts[0], counts[1]) == 0) {
+                            // Problem created after startup
+                            statsRepository.save(new ProblemStats(delta.getKey(), counts[0], counts[1]));
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Flushing problem counters failed, retrying next time: {}", e.getMessage());
+                for (Map.Entry<Long, long[]> delta : deltas.entrySet()) {
+                    Counters counter = counters(delta.getKey());
+                    counter.flushedSubmitted.addAndGet(-delta.getValue()[0]);
+                    counter.flushedAccepted.addAndGet(-delta.getValue()[1]);
+                    counter.submitted.add(delta.getValue()[0]);
+                    counter.accepted.add(delta.getValue()[1]);
+                }
+                return;
+            }
+        }
+        List<Long> loaded = counters.entrySet().stream()
+            .filter(entry -> entry.getValue().loaded)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (!loaded.isEmpty()) {
+            load(loaded);
+        }
+    }
+
+    private void load(List<Long> problemIds) {
+        Map<Long, ProblemStats> rows = new HashMap<>();
+        for (ProblemStats stats : statsRepository.findAllById(problemIds)) {
+            rows.put(stats.getProblemId(), stats);
+        }
+        for (Long problemId : problemIds) {
+            ProblemStats stats = rows.get(problemId);
+            Counters counter = counters(problemId);
+            counter.flushedSubmitted.set(stats == null ? 0 : stats.getTotalSubmissions());
+            counter.flushedAccepted.set(stats == null ? 0 : stats.getAcceptedSubmissions());
+            counter.loaded = true;
+        }
+    }
+
+    private Counters counters(Long problemId) {
+        return counters.computeIfAbsent(problemId, id -> new Counters());
+    }
+
+    public record Counts(long submitted, long accepted) {
+    }
+
+    private static final class Counters {
+        // Not flushed yet
+        final LongAdder submitted = new LongAdder();
+        final LongAdder accepted = new LongAdder();
+        // As of the last flush or read of the row
+        final AtomicLong flushedSubmitted = new AtomicLong();
+        final AtomicLong flushedAccepted = new AtomicLong();
+        volatile boolean loaded;
+    }
+}
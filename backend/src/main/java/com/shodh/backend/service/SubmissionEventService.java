@@ -0,0 +1,157 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.dto.SubmissionEvent;
+import com.shodh.backend.model.SubmissionStatus;
+import com.shodh.backend.repository.SubmissionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-sent event streams of submission progress. The judge publishes status changes and
+ * test case progress here; every stream gets the current state on subscribe, a
+ * {@code status} event per change and a final {@code verdict} event, after which it is
+ * closed.
+ *
+ * <p>Events only reach streams on the node that judges the submission. Streams held on
+ * other nodes, or that missed the verdict, are closed by a periodic sweep that reads the
+ * status columns of all watched submissions in one query.
+ */
+@Service
+@Slf4j
+public class SubmissionEventService {
+    private final SubmissionRepository submissionRepository;
+    private final JudgeProperties.Events properties;
+    private final Map<Long, List<SseEmitter>> streams = new ConcurrentHashMap<>();
+    // Latest progress of submissions judged here, so late subscribers don't start from scratch
+    private final Map<Long, SubmissionEvent> progress = new ConcurrentHashMap<>();
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+
+    public SubmissionEventService(SubmissionRepository submissionRepository, JudgeProperties properties) {
+        this.submissionRepository = submissionRepository;
+        this.properties = properties.getEvents();
+    }
+
+    public SseEmitter subscribe(Long submissionId) {
+        SubmissionRepository.StatusView view = submissionRepository.findStatusById(submissionId)
+            .orElseThrow(() -> new RuntimeException("Submission not found"));
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        opened.incrementAndGet();
+        if (view.getStatus().isFinal()) {
+            send(emitter, fromView(view));
+            emitter.complete();
+            return emitter;
+        }
+
+        // Registered before the current state is sent, so a verdict published in between is not lost
+        streams.computeIfAbsent(submissionId, id -> new CopyOnWriteArrayList<>()).add(emitter);
+        emitter.onCompletion(() -> remove(submissionId, emitter));
+        emitter.onTimeout(() -> remove(submissionId, emitter));
+        emitter.onError(e -> remove(submissionId, emitter));
+        send(emitter, progress.getOrDefault(submissionId, fromView(view)));
+        return emitter;
+    }
+
+    public void publish(SubmissionEvent event) {
+        Long submissionId = event.getSubmissionId();
+        boolean last = event.getStatus().isFinal();
+        if (last) {
+            progress.remove(submissionId);
+        } else {
+            progress.put(submissionId, event);
+        }
+        List<SseEmitter> emitters = last ? streams.remove(submissionId) : streams.get(submissionId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            if (send(emitter, event) && last) {
+                emitter.complete();
+            }
+        }
+    }
+
+    public void progress(Long submissionId, int completedTests, int totalTests) {
+        publish(SubmissionEvent.builder()
+            .submissionId(submissionId)
+            .status(SubmissionStatus.RUNNING)
+            .completedTests(completedTests)
+            .totalTests(totalTests)
+            .build());
+    }
+
+    /**
+     * Closes streams whose submission got its verdict elsewhere and keeps idle ones alive
+     * through proxies with a comment line.
+     */
+    @Scheduled(fixedDelayString = "${judge.events.sweep-interval:5s}")
+    public void sweep() {
+        if (streams.isEmpty()) {
+            return;
+        }
+        for (SubmissionRepository.StatusView view : submissionRepository.findStatusByIdIn(new ArrayList<>(streams.keySet()))) {
+            if (view.getStatus().isFinal()) {
+                publish(fromView(view));
+            }
+        }
+        for (List<SseEmitter> emitters : streams.values()) {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("watchedSubmissions", streams.size());
+        stats.put("openStreams", streams.values().stream().mapToInt(List::size).sum());
+        stats.put("opened", opened.get());
+        stats.put("eventsSent", eventsSent.get());
+        return stats;
+    }
+
+    private boolean send(SseEmitter emitter, SubmissionEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(event.getStatus().isFinal() ? "verdict" : "status")
+                .data(event));
+            eventsSent.incrementAndGet();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // Client went away
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Long submissionId, SseEmitter emitter) {
+        streams.computeIfPresent(submissionId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static SubmissionEvent fromView(SubmissionRepository.StatusView view) {
+        return SubmissionEvent.builder()
+            .submissionId(view.getId())
+            .status(view.getStatus())
+            .executionTime(view.getExecutionTime())
+            .memoryUsed(view.getMemoryUsed())
+            .output(view.getOutput())
+            .error(view.getError())
+            .build();
+    }
+}
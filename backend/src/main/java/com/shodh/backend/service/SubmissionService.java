@@ -6,22 +6,23 @@ import com.shodh.backend.model.*;
 import com.shodh.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.util.concurrent.CompletableFuture;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @RequiredArgsConstructor
-@Transactional
 @Slf4j
 public class SubmissionService {
     private final SubmissionRepository submissionRepository;
     private final UserRepository userRepository;
     private final ContestRepository contestRepository;
     private final ProblemRepository problemRepository;
-    private final JudgeService judgeService;
+    private final JudgeDispatcher judgeDispatcher;
+    private final ProblemStatsService problemStatsService;
+    private final ParticipantService participantService;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
 
     public SubmissionResponse submitCode(SubmissionRequest request) {
         // Basic language validation and normalization
@@ -30,79 +31,60 @@ public class SubmissionService {
             throw new RuntimeException("Unsupported language. Allowed: java, python, cpp, javascript");
         }
 
-        // Find or create user
-        User user = userRepository.findByUsername(request.getUsername())
-            .orElseGet(() -> {
-                User newUser = User.builder()
-                    .username(request.getUsername())
-                    .build();
-                return userRepository.save(newUser);
-            });
-
-        // Find contest
+        // Find contest and problem; nothing is written for a request that names neither or a mismatched pair
         Contest contest = contestRepository.findById(request.getContestId())
             .orElseThrow(() -> new RuntimeException("Contest not found"));
-
-        // Ensure user is recorded as participant of the contest
-        boolean alreadyParticipant = contest.getParticipants().stream()
-            .anyMatch(u -> u.getId().equals(user.getId()));
-        if (!alreadyParticipant) {
-            contest.getParticipants().add(user);
-            contestRepository.save(contest);
-        }
-
-        // Find problem
         Problem problem = problemRepository.findById(request.getProblemId())
             .orElseThrow(() -> new RuntimeException("Problem not found"));
+        if (problem.getContest() == null || !contest.getId().equals(problem.getContest().getId())) {
+            throw new RuntimeException("Problem not found in this contest");
+        }
+
+        // Turn the submission away before creating the user or registering them if the judge queue cannot take it
+        judgeDispatcher.precheck(userService.findUserId(request.getUsername()).orElse(null));
+
+        // Find or create user and register them for the contest, each before the submission's transaction starts
+        Long userId = userService.getOrCreateUserId(request.getUsername());
+        participantService.register(contest.getId(), userId);
+
+        return transactionTemplate.execute(status -> createSubmission(request, lang, userId, contest, problem));
+    }
+
+    private SubmissionResponse createSubmission(SubmissionRequest request, String lang, Long userId, Contest contest, Problem problem) {
+        // Checked again under the user's row lock, now that the job is inserted in this transaction
+        judgeDispatcher.admit(userId);
 
         // Create submission
         Submission submission = Submission.builder()
             .code(request.getCode())
             .language(lang)
             .status(SubmissionStatus.PENDING)
-            .user(user)
+            .user(userRepository.getReferenceById(userId))
             .contest(contest)
             .problem(problem)
             .build();
 
         submission = submissionRepository.save(submission);
+        problemStatsService.recordSubmitted(problem.getId());
 
-        // Process submission asynchronously
-        processSubmissionAsync(submission.getId());
+        // Judged by a queue worker once this transaction commits
+        judgeDispatcher.enqueue(submission);
 
-        return mapToSubmissionResponse(submission);
-    }
-
-    @Async
-    public CompletableFuture<Void> processSubmissionAsync(Long submissionId) {
-        try {
-            // This will be called asynchronously
-            judgeService.judgeSubmission(submissionId);
-        } catch (Exception e) {
-            log.error("Error processing submission {}: {}", submissionId, e.getMessage());
-            // Update submission status to error
-            Submission submission = submissionRepository.findById(submissionId)
-                .orElse(null);
-            if (submission != null) {
-                submission.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                submission.setError(e.getMessage());
-                submissionRepository.save(submission);
-            }
-        }
-        return CompletableFuture.completedFuture(null);
+        return mapToSubmissionResponse(submission, request.getUsername());
     }
 
+    @Transactional
     public SubmissionResponse getSubmissionById(Long submissionId) {
         Submission submission = submissionRepository.findById(submissionId)
             .orElseThrow(() -> new RuntimeException("Submission not found"));
         
-        return mapToSubmissionResponse(submission);
+        return mapToSubmissionResponse(submission, submission.getUser().getUsername());
     }
 
-    private SubmissionResponse mapToSubmissionResponse(Submission submission) {
+    private SubmissionResponse mapToSubmissionResponse(Submission submission, String username) {
         return SubmissionResponse.builder()
             .submissionId(submission.getId())
-            .username(submission.getUser().getUsername())
+            .username(username)
             .problemId(submission.getProblem().getId())
             .problemTitle(submission.getProblem().getTitle())
             .code(submission.getCode())
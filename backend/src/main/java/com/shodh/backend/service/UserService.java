@@ -0,0 +1,89 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.model.User;
+import com.shodh.backend.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves usernames to user ids for the submit path. Ids never change, so they are kept
+ * in a bounded LRU cache and a returning user costs no query. New users are created in
+ * their own transaction; when a concurrent request (on any node) creates the same user
+ * first, the unique username constraint rejects the second insert and its id is read back.
+ */
+@Service
+public class UserService {
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Long> userIds = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_CACHED_USERS;
+        }
+    };
+
+    public UserService(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * The id of the user with that name, if there is one. Never creates the user.
+     */
+    public Optional<Long> findUserId(String username) {
+        Long userId;
+        synchronized (userIds) {
+            userId = userIds.get(username);
+        }
+        if (userId != null) {
+            return Optional.of(userId);
+        }
+        Optional<Long> found = userRepository.findIdByUsername(username);
+        found.ifPresent(id -> {
+            synchronized (userIds) {
+                userIds.put(username, id);
+            }
+        });
+        return found;
+    }
+
+    /**
+     * The id of the user with that name, creating the user if there is none. Call it outside
+     * other transactions, so creating a user never holds a second connection.
+     */
+    public Long getOrCreateUserId(String username) {
+        Long userId;
+        synchronized (userIds) {
+            userId = userIds.get(username);
+        }
+        if (userId != null) {
+            return userId;
+        }
+        userId = userRepository.findIdByUsername(username).orElseGet(() -> create(username));
+        synchronized (userIds) {
+            userIds.put(username, userId);
+        }
+        return userId;
+    }
+
+    private Long create(String username) {
+        try {
+            return newTransaction.execute(status -> userRepository.save(User.builder()
+                .username(username)
+                .build()).getId());
+        } catch (DataIntegrityViolationException e) {
+            // Created by a concurrent first submission
+            return userRepository.findIdByUsername(username).orElseThrow(() -> e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+#!/bin/sh
+# Runs one compiled submission against every input in batch/in inside a single sandbox.
+#
+# Usage: sh batch-runner.sh <cpu-limit-seconds> <wall-limit-seconds> <test-count> <stop-on-error> <run-command> <output-limit-blocks>
+#
+# For test i the program reads batch/in/<i> on stdin and is run through measure.sh. One
+# frame per test is written to stdout:
+#   @@ <i> <exit-code> <cpu-us> <peak-kb> <oom-kills> <wall-ms> <stdout-bytes> <stderr-bytes>\n<stdout bytes><stderr bytes>
+# Output is capped with ulimit -f (512-byte blocks); a program that writes past it dies with
+# SIGXFSZ, reported as exit code 153. Like measure.sh this script is trusted and lives in
+# $JUDGE_REPORT_DIR: the program's output and measure.sh's report are kept there, out of
+# the program's reach, and the input is opened by the program itself so a planted link
+# cannot redirect this script. A test without a report gets a header the judge rejects.
+#
+# Expected outputs never enter the sandbox, so the runner itself only stops on a non-zero
+# exit; the judge compares each frame as it arrives and kills the runner at the first wrong
+# answer.
+
+CPU="$1"
+WALL="$2"
+N="$3"
+STOP="$4"
+RUN="$5"
+BLOCKS="$6"
+R="${JUDGE_REPORT_DIR:?}"
+
+i=0
+while [ "$i" -lt "$N" ]; do
+    rm -f "$R/batch-stats"
+    (ulimit -f "$BLOCKS"; exec sh "$R/measure.sh" batch-stats "$CPU" "$WALL" "exec < batch/in/$i; $RUN") > "$R/out" 2> "$R/err" < /dev/null
+    code=$?
+    stats=$(cat "$R/batch-stats" 2>/dev/null || echo missing)
+    out=$(wc -c < "$R/out")
+    err=$(wc -c < "$R/err")
+
+    printf '@@ %d %s %d %d\n' "$i" "$stats" "$out" "$err"
+    head -c "$out" "$R/out"
+    head -c "$err" "$R/err"
+
+    if [ "$STOP" = 1 ] && [ "$code" -ne 0 ]; then
+        break
+    fi
+    i=$((i + 1))
+done
+rm -f "$R/batch-stats" "$R/out" "$R/err"
@@ -0,0 +1,88 @@
+#!/bin/sh
+# Runs one program inside the sandbox and records what it cost.
+#
+# Usage: sh measure.sh <report-name> <cpu-limit-seconds> <wall-limit-seconds> <run-command>
+#
+# This script is trusted; the program is not. It lives in $JUDGE_REPORT_DIR, a directory
+# the program can neither see nor write, and the sandbox backend starts it with that
+# variable and $JUDGE_CONFINE, the command prefix (ending in something like "sh -c") that
+# starts the program with fewer privileges than this script. The report and every scratch
+# file stay in $JUDGE_REPORT_DIR, so nothing the program does, or leaves running, can
+# rewrite the figures the verdict is based on.
+#
+# CPU time and OOM kills are read from the sandbox's cgroup accounting before and after
+# the run (cgroup v2 cpu.stat/memory.events, or cpuacct.usage/memory.oom_control on a
+# cgroup v1 host). A sandbox runs one
+# program at a time, so the deltas belong to this run. Peak RSS is the largest process
+# of the run as reported by GNU time. One line is written to $JUDGE_REPORT_DIR/<report-name>:
+#   <exit-code> <cpu-us> <peak-kb> <oom-kills> <wall-ms>
+# and the script exits with the program's exit code. ulimit -t stops a CPU-bound program
+# shortly after its limit (SIGXCPU, exit 152); timeout(1) stops one that is blocked (124).
+
+STATS="${JUDGE_REPORT_DIR:?}/$1"
+CPU="$2"
+WALL="$3"
+# Descriptors this script opened (GNU time's output file) are not handed to the program
+RUN="exec 3>&- 4>&- 5>&- 6>&- 7>&- 8>&- 9>&-; $4"
+CONFINE="${JUDGE_CONFINE:-sh -c}"
+# The local backend points this at the sandbox's own group
+CG="${JUDGE_CGROUP:-/sys/fs/cgroup}"
+
+cgroup_value() {
+    awk -v key="$2" '$1 == key { print $2; found = 1 } END { if (!found) print 0 }' "$CG/$1" 2>/dev/null || echo 0
+}
+
+cpu_usec() {
+    if [ -r "$CG/cpu.stat" ]; then
+        cgroup_value cpu.stat usage_usec
+    elif [ -r "$CG/cpuacct/cpuacct.usage" ]; then
+        echo $(( $(cat "$CG/cpuacct/cpuacct.usage") / 1000 ))
+    fi
+}
+
+oom_kills() {
+    if [ -r "$CG/memory.events" ]; then
+        cgroup_value memory.events oom_kill
+    else
+        cgroup_value memory/memory.oom_control oom_kill
+    fi
+}
+
+rm -f "$STATS" "$STATS.rusage" "$STATS.times"
+cpu_before=$(cpu_usec)
+oom_before=$(oom_kills)
+start=$(date +%s%N)
+
+if [ -x /usr/bin/time ]; then
+    (ulimit -t "$CPU"; exec /usr/bin/time -q -f '%M %U %S' -o "$STATS.rusage" timeout -k 1 "$WALL" $CONFINE "$RUN")
+else
+    (ulimit -t "$CPU"; exec timeout -k 1 "$WALL" $CONFINE "$RUN")
+fi
+code=$?
+# Whatever the program left running in the background (a no-op where it ran in its own PID namespace)
+if [ -n "$JUDGE_CLEANUP" ]; then
+    $JUDGE_CLEANUP 2>/dev/null
+fi
+# Child CPU times of this shell, the last resort if neither cgroup nor GNU time is available
+times > "$STATS.times"
+
+end=$(date +%s%N)
+cpu_after=$(cpu_usec)
+oom_after=$(oom_kills)
+
+rusage=$(tail -n 1 "$STATS.rusage" 2>/dev/null)
+peak=$(echo "$rusage" | awk '{ print ($1 == "" ? 0 : $1) }')
+if [ -n "$cpu_before" ]; then
+    cpu=$((cpu_after - cpu_before))
+else
+    # No CPU accounting visible inside the sandbox: fall back to user + system time of the run
+    cpu=$(echo "$rusage" | awk '{ printf "%d", ($2 + $3) * 1000000 }')
+    if [ -z "$rusage" ]; then
+        # Nor GNU time: "XmY.Zs XmY.Zs" (user, system) on the second line
+        cpu=$(awk 'NR == 2 { split($1, u, "m"); split($2, s, "m"); printf "%d", (u[1] * 60 + u[2] + s[1] * 60 + s[2]) * 1000000 }' "$STATS.times")
+    fi
+fi
+
+printf '%d %d %d %d %d\n' "$code" "$cpu" "$peak" $((oom_after - oom_before)) $(( (end - start) / 1000000 )) > "$STATS"
+rm -f "$STATS.rusage" "$STATS.times"
+exit "$code"
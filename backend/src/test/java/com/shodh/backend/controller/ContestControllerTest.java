@@ -0,0 +1,125 @@
+package com.shodh.backend.controller;
+
+import com.shodh.backend.model.*;
+import com.shodh.backend.repository.*;
+import com.shodh.backend.service.JudgeDispatcher;
+import com.shodh.backend.service.JudgeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:leaderboard",
+    "leaderboard.finished-idle-timeout=0s"
+})
+@AutoConfigureMockMvc
+class ContestControllerTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JudgeService judgeService;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Autowired
+    ProblemRepository problemRepository;
+
+    @Autowired
+    TestCaseRepository testCaseRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    SubmissionRepository submissionRepository;
+
+    @Test
+    void unchangedLeaderboardIsNotModified() throws Exception {
+        Contest contest = runningContest();
+        String etag = leaderboard(contest, null).getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/contests/{contestId}/leaderboard", contest.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void acceptedSubmissionChangesTheETag() throws Exception {
+        Contest contest = runningContest();
+        Problem problem = echoProblem(contest);
+        String etag = leaderboard(contest, null).getResponse().getHeader(HttpHeaders.ETAG);
+        User user = userRepository.save(User.builder().username("user-" + UUID.randomUUID()).build());
+        Submission submission = submissionRepository.save(Submission.builder()
+            .code("print(input())")
+            .language("python")
+            .status(SubmissionStatus.PENDING)
+            .user(user)
+            .contest(contest)
+            .problem(problem)
+            .build());
+
+        judgeService.judgeSubmission(submission.getId());
+
+        MvcResult result = leaderboard(contest, etag);
+        assertNotEquals(etag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(result.getResponse().getContentAsString().contains(user.getUsername()));
+    }
+
+    private MvcResult leaderboard(Contest contest, String ifNoneMatch) throws Exception {
+        var request = get("/api/contests/{contestId}/leaderboard", contest.getId());
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request)
+            .andExpect(status().isOk())
+            .andReturn();
+    }
+
+    private Contest runningContest() {
+        return contestRepository.save(Contest.builder()
+            .title("Running")
+            .startTime(LocalDateTime.now().minusHours(1))
+            .endTime(LocalDateTime.now().plusHours(1))
+            .build());
+    }
+
+    private Problem echoProblem(Contest contest) {
+        Problem problem = problemRepository.save(Problem.builder()
+            .title("Echo")
+            .description("Print the input")
+            .timeLimit(1)
+            .memoryLimit(256)
+            .points(100)
+            .contest(contest)
+            .build());
+        testCaseRepository.save(TestCase.builder()
+            .input("42\n")
+            .expectedOutput("42\n")
+            .isSample(false)
+            .problem(problem)
+            .build());
+        return problem;
+    }
+}
@@ -0,0 +1,109 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keyCoversToolchainLanguageCommandAndSource() {
+        ArtifactCache cache = cache("image-a", 1);
+        String key = cache.key("cpp", "int main() {}", "g++ -O2 main.cpp");
+
+        assertEquals(key, cache.key("cpp", "int main() {}", "g++ -O2 main.cpp"));
+        assertNotEquals(key, cache("image-b", 1).key("cpp", "int main() {}", "g++ -O2 main.cpp"));
+        assertNotEquals(key, cache.key("c", "int main() {}", "g++ -O2 main.cpp"));
+        assertNotEquals(key, cache.key("cpp", "int main() {}", "g++ -O0 main.cpp"));
+        assertNotEquals(key, cache.key("cpp", "int main() { }", "g++ -O2 main.cpp"));
+        // Separators keep a byte moving from one component to the next from colliding
+        assertNotEquals(cache.key("cpp", "x", "g++"), cache.key("cpp", "", "g++x"));
+    }
+
+    @Test
+    void unknownToolchainBypassesTheCache() {
+        ArtifactCache cache = cache(null, 1);
+
+        assertNull(cache.key("cpp", "int main() {}", "g++ main.cpp"));
+        assertEquals(1L, cache.stats().get("bypassed"));
+    }
+
+    @Test
+    void storedArtifactIsCopiedOnAHit() throws IOException {
+        ArtifactCache cache = cache("image-a", 1);
+        String key = cache.key("cpp", "int main() {}", "g++ main.cpp");
+        Path target = Files.createDirectories(dir.resolve("target"));
+
+        assertFalse(cache.copyTo(key, target));
+        cache.put(key, compiled("a.out", 16));
+        assertTrue(cache.copyTo(key, target));
+
+        assertEquals(16, Files.size(target.resolve("a.out")));
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+        assertEquals(1L, cache.stats().get("stores"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() throws IOException {
+        // 1 MB holds two of the 400 KB artifacts but not three
+        ArtifactCache cache = cache("image-a", 1);
+        Path target = Files.createDirectories(dir.resolve("target"));
+        cache.put("first", compiled("a.out", 400 * 1024));
+        cache.put("second", compiled("a.out", 400 * 1024));
+        assertTrue(cache.copyTo("first", target));
+
+        cache.put("third", compiled("a.out", 400 * 1024));
+
+        assertTrue(cache.copyTo("first", target));
+        assertFalse(cache.copyTo("second", target));
+        assertTrue(cache.copyTo("third", target));
+        assertFalse(Files.exists(dir.resolve("cache").resolve("second")));
+        assertEquals(1L, cache.stats().get("evictions"));
+        assertEquals(2, cache.stats().get("entries"));
+    }
+
+    @Test
+    void entriesSurviveARestart() throws IOException {
+        ArtifactCache cache = cache("image-a", 1);
+        String key = cache.key("java", "class Main {}", "javac Main.java");
+        cache.put(key, compiled("Main.class", 32));
+        Path staging = Files.createDirectories(dir.resolve("cache").resolve(".staging-crashed"));
+
+        ArtifactCache restarted = cache("image-a", 1);
+
+        assertFalse(Files.exists(staging));
+        assertEquals(1, restarted.stats().get("entries"));
+        assertEquals(32L, restarted.stats().get("sizeBytes"));
+        Path target = Files.createDirectories(dir.resolve("target"));
+        assertTrue(restarted.copyTo(key, target));
+        assertEquals(32, Files.size(target.resolve("Main.class")));
+    }
+
+    private ArtifactCache cache(String toolchainId, long maxSizeMb) {
+        JudgeProperties properties = new JudgeProperties();
+        properties.getArtifactCache().setDir(dir.resolve("cache").toString());
+        properties.getArtifactCache().setMaxSizeMb(maxSizeMb);
+        return new ArtifactCache(properties, new FakeSandboxBackend(properties) {
+            @Override
+            public String toolchainId() {
+                return toolchainId;
+            }
+        });
+    }
+
+    private Path compiled(String fileName, int size) throws IOException {
+        Path compiledDir = Files.createTempDirectory(dir, "compiled-");
+        Files.write(compiledDir.resolve(fileName), new byte[size]);
+        return compiledDir;
+    }
+}
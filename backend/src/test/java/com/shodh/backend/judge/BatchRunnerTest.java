@@ -0,0 +1,59 @@
+package com.shodh.backend.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+    private static final byte[] EXPECTED = "1 2 3".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void keepsOnlyTheRetainedPrefixAndStopsWhenTheConsumerDoes() throws IOException {
+        String output = "1 2 3\n".repeat(100);
+        String stream = frame(0, output, "warning") + frame(1, "9", "") + frame(2, "1 2 3", "");
+        byte[] expected = output.getBytes(StandardCharsets.UTF_8);
+        List<BatchRunner.Frame> frames = new ArrayList<>();
+
+        BatchRunner.read(input(stream), 3, 1024, 8, index -> new OutputComparator(expected), frame -> {
+            frames.add(frame);
+            return frame.outputMatched();
+        });
+
+        assertEquals(2, frames.size());
+        assertTrue(frames.get(0).outputMatched());
+        assertEquals("1 2 3\n1 ", new String(frames.get(0).stdout(), StandardCharsets.UTF_8));
+        assertEquals("warning", new String(frames.get(0).stderr(), StandardCharsets.UTF_8));
+        assertFalse(frames.get(1).outputMatched());
+    }
+
+    @Test
+    void rejectsFramesLongerThanTheOutputLimit() {
+        // Claims far more than ulimit -f lets a program write; nothing is allocated for it
+        String stream = "@@ 0 0 1000 1024 0 1 2147483647 0\n";
+
+        assertThrows(IOException.class, () ->
+            BatchRunner.read(input(stream), 1, 1024, 8, index -> new OutputComparator(EXPECTED), frame -> true));
+    }
+
+    @Test
+    void rejectsTruncatedAndUnexpectedFrames() {
+        assertThrows(IOException.class, () ->
+            BatchRunner.read(input("@@ 0 0 1000 1024 0 1 10 0\nshort"), 1, 1024, 8, index -> new OutputComparator(EXPECTED), frame -> true));
+        assertThrows(IOException.class, () ->
+            BatchRunner.read(input(frame(0, "", "") + frame(1, "", "")), 1, 1024, 8, index -> new OutputComparator(EXPECTED), frame -> true));
+    }
+
+    private static String frame(int index, String stdout, String stderr) {
+        return "@@ " + index + " 0 1000 1024 0 1 " + stdout.length() + " " + stderr.length() + "\n" + stdout + stderr;
+    }
+
+    private static ByteArrayInputStream input(String stream) {
+        return new ByteArrayInputStream(stream.getBytes(StandardCharsets.UTF_8));
+    }
+}
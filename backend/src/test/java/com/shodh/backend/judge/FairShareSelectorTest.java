@@ -0,0 +1,67 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.model.JudgeJob;
+import com.shodh.backend.model.JudgeLane;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FairShareSelectorTest {
+
+    @Test
+    void alternatesBetweenUsersInsteadOfDrainingTheBusiestFirst() {
+        FairShareSelector selector = new FairShareSelector(Map.of());
+        List<JudgeJob> queue = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            queue.add(job(id, 1L, JudgeLane.CONTEST));
+        }
+        queue.add(job(5, 2L, JudgeLane.CONTEST));
+        queue.add(job(6, 3L, JudgeLane.CONTEST));
+
+        List<Long> users = drain(selector, queue);
+
+        assertEquals(List.of(1L, 2L, 3L, 1L, 1L, 1L), users);
+    }
+
+    @Test
+    void sharesJudgeBetweenLanesByWeight() {
+        FairShareSelector selector = new FairShareSelector(Map.of(JudgeLane.CONTEST, 2, JudgeLane.PRACTICE, 1));
+        List<JudgeJob> queue = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            queue.add(job(id, id, JudgeLane.PRACTICE));
+        }
+        for (long id = 5; id <= 10; id++) {
+            queue.add(job(id, id, JudgeLane.CONTEST));
+        }
+
+        List<JudgeLane> lanes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            JudgeJob next = selector.order(queue).get(0);
+            selector.served(next);
+            queue.remove(next);
+            lanes.add(next.getLane());
+        }
+
+        assertEquals(4, lanes.stream().filter(lane -> lane == JudgeLane.CONTEST).count());
+        assertEquals(2, lanes.stream().filter(lane -> lane == JudgeLane.PRACTICE).count());
+    }
+
+    private static List<Long> drain(FairShareSelector selector, List<JudgeJob> queue) {
+        List<Long> users = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            JudgeJob next = selector.order(queue).get(0);
+            selector.served(next);
+            queue.remove(next);
+            users.add(next.getUserId());
+        }
+        return users;
+    }
+
+    private static JudgeJob job(long id, Long userId, JudgeLane lane) {
+        return JudgeJob.builder().id(id).userId(userId).contestId(1L).lane(lane).build();
+    }
+}
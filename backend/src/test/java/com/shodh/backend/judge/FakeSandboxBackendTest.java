@@ -0,0 +1,73 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeSandboxBackendTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void measuredRunAnswersWithProgramOutputAndFixedUsage() throws Exception {
+        FakeSandboxBackend backend = new FakeSandboxBackend(new JudgeProperties());
+        backend.setProgram(input -> "42\n".getBytes(StandardCharsets.UTF_8));
+        Sandbox sandbox = new Sandbox("fake-1", "python", Files.createDirectory(root.resolve("fake-1")), 256);
+        JudgeFiles.createPrivateDirectory(sandbox.getReportDir());
+
+        String reportName = ResourceUsage.newReportName();
+        Process process = backend.execMeasured(sandbox, ResourceUsage.command(reportName, "python3 solution.py", 1, 2));
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write("1 2\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(0, process.waitFor());
+        assertArrayEquals("42\n".getBytes(StandardCharsets.UTF_8), process.getInputStream().readAllBytes());
+        ResourceUsage usage = ResourceUsage.read(sandbox.getReportDir().resolve(reportName));
+        assertEquals(new ResourceUsage(0, 1000, 1024, 0, 1), usage);
+        assertFalse(Files.exists(sandbox.getWorkspace().resolve(reportName)));
+    }
+
+    @Test
+    void missingOrMalformedReportIsAJudgeError() throws Exception {
+        assertThrows(IllegalStateException.class, () -> ResourceUsage.read(root.resolve("usage-missing")));
+        Files.writeString(root.resolve("usage-forged"), "0 0\n");
+        assertThrows(IllegalStateException.class, () -> ResourceUsage.read(root.resolve("usage-forged")));
+    }
+
+    @Test
+    void batchRunEchoesEveryInputAsAFrame() throws Exception {
+        FakeSandboxBackend backend = new FakeSandboxBackend(new JudgeProperties());
+        Path workspace = Files.createDirectory(root.resolve("run-1"));
+        Path reportDir = JudgeFiles.createPrivateDirectory(root.resolve("run-1.reports"));
+        BatchRunner.prepare(workspace, reportDir);
+        Files.writeString(BatchRunner.inputFile(workspace, 0), "a");
+        Files.writeString(BatchRunner.inputFile(workspace, 1), "bc");
+
+        Process process = backend.runMeasured("run-1", workspace, reportDir, BatchRunner.command("./solution", 1, 2, 2, true, 1024), 256);
+        process.getOutputStream().close();
+        List<BatchRunner.Frame> frames = new ArrayList<>();
+        BatchRunner.read(process.getInputStream(), 2, 1024, 1024, index -> new OutputComparator("bc".getBytes(StandardCharsets.UTF_8)),
+            frames::add);
+
+        assertEquals(2, frames.size());
+        assertFalse(frames.get(0).outputMatched());
+        assertTrue(frames.get(1).outputMatched());
+        assertArrayEquals("bc".getBytes(StandardCharsets.UTF_8), frames.get(1).stdout());
+        assertEquals(1000, frames.get(1).usage().cpuTimeUs());
+    }
+}
@@ -0,0 +1,71 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JudgeConcurrencyLimiterTest {
+
+    @Test
+    void growsWhileSaturatedAndJobsWait() {
+        JudgeConcurrencyLimiter limiter = limiter(2, 8);
+        saturate(limiter);
+        limiter.recordQueueLatency(5000);
+        limiter.adjust(0);
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    void staysPutWithoutQueueing() {
+        JudgeConcurrencyLimiter limiter = limiter(2, 8);
+        saturate(limiter);
+        limiter.recordQueueLatency(10);
+        limiter.adjust(0);
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffWhenRunsInflate() {
+        JudgeConcurrencyLimiter limiter = limiter(8, 8);
+        limiter.recordRun(new ResourceUsage(0, 100_000, 1024, 0, 110));
+        limiter.adjust(0);
+        assertEquals(8, limiter.getLimit());
+
+        // Same CPU time, twice the wall time: the program spent half the run waiting for a core
+        limiter.recordRun(new ResourceUsage(0, 100_000, 1024, 0, 220));
+        limiter.adjust(0);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffUnderCpuPressure() {
+        JudgeConcurrencyLimiter limiter = limiter(4, 8);
+        limiter.adjust(60.0);
+
+        assertEquals(3, limiter.getLimit());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    private static void saturate(JudgeConcurrencyLimiter limiter) {
+        while (limiter.tryAcquire()) {
+        }
+    }
+
+    private static JudgeConcurrencyLimiter limiter(int workers, int maxLimit) {
+        JudgeProperties properties = new JudgeProperties();
+        properties.getQueue().setWorkers(workers);
+        properties.getConcurrency().setMaxLimit(maxLimit);
+        properties.getConcurrency().setTargetQueueLatency(Duration.ofSeconds(1));
+        return new JudgeConcurrencyLimiter(properties);
+    }
+}
@@ -0,0 +1,132 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class LocalProcessSandboxBackendTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void requireUserNamespaces() throws Exception {
+        Process probe;
+        try {
+            probe = new ProcessBuilder("unshare", "--user", "--map-root-user", "--mount", "true").start();
+        } catch (java.io.IOException e) {
+            probe = null;
+        }
+        assumeTrue(probe != null && probe.waitFor(10, TimeUnit.SECONDS) && probe.exitValue() == 0,
+            "unprivileged user namespaces are not available");
+    }
+
+    @Test
+    void programSeesOnlyItsOwnWorkspace() throws Exception {
+        JudgeProperties properties = properties();
+        Path testData = Files.createDirectories(Path.of(properties.getTestData().getDir()));
+        Files.writeString(testData.resolve("expected"), "secret");
+        Path otherWorkspace = Files.createDirectories(Path.of(properties.getWorkspaceRoot(), "other"));
+        Files.writeString(otherWorkspace.resolve("solution.py"), "someone else's code");
+        Path workspace = Files.createDirectories(Path.of(properties.getWorkspaceRoot(), "sandbox-1"));
+
+        LocalProcessSandboxBackend backend = new LocalProcessSandboxBackend(properties);
+        Sandbox sandbox = new Sandbox("sandbox-1", "python", workspace, 256);
+        backend.start(sandbox);
+        try {
+            String output = run(backend, sandbox, "cat " + testData.resolve("expected") + "; cat " + otherWorkspace.resolve("solution.py")
+                + "; echo written > out; cat " + workspace.resolve("out"));
+
+            assertEquals("written\n", output);
+            assertEquals("written\n", Files.readString(workspace.resolve("out")));
+        } finally {
+            backend.destroy(sandbox);
+        }
+    }
+
+    @Test
+    void fileSizeIsLimited() throws Exception {
+        JudgeProperties properties = properties();
+        properties.getSandbox().getLocal().setMaxFileSizeMb(1);
+        Path workspace = Files.createDirectories(Path.of(properties.getWorkspaceRoot(), "sandbox-1"));
+
+        LocalProcessSandboxBackend backend = new LocalProcessSandboxBackend(properties);
+        Sandbox sandbox = new Sandbox("sandbox-1", "cpp", workspace, 256);
+        backend.start(sandbox);
+        try {
+            run(backend, sandbox, "head -c 2000000 /dev/zero > big");
+
+            assertEquals(1024 * 1024, Files.size(workspace.resolve("big")));
+        } finally {
+            backend.destroy(sandbox);
+        }
+    }
+
+    @Test
+    void usageReportIsOutOfTheProgramsReach() throws Exception {
+        JudgeProperties properties = properties();
+        Path workspace = Files.createDirectories(Path.of(properties.getWorkspaceRoot(), "sandbox-1"));
+
+        LocalProcessSandboxBackend backend = new LocalProcessSandboxBackend(properties);
+        Sandbox sandbox = new Sandbox("sandbox-1", "python", workspace, 256);
+        JudgeFiles.createPrivateDirectory(sandbox.getReportDir());
+        ResourceUsage.install(sandbox.getReportDir());
+        backend.start(sandbox);
+        try {
+            Process process = backend.execMeasured(sandbox, ResourceUsage.command("usage", "echo 7 0 0 0 0 > \"$JUDGE_REPORT_DIR/usage\";"
+                + " ls -A \"$JUDGE_REPORT_DIR\" | wc -l; exit 3", 1, 2));
+            process.getOutputStream().close();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+
+            assertEquals("0", output.trim());
+            assertEquals(3, ResourceUsage.read(sandbox.getReportDir().resolve("usage")).exitCode());
+        } finally {
+            backend.destroy(sandbox);
+        }
+    }
+
+    @Test
+    void refusesToRunWithoutCgroupLimitsUnlessAllowed() {
+        JudgeProperties properties = properties();
+        properties.getSandbox().getLocal().setAllowUnconfined(false);
+
+        assertThrows(IllegalStateException.class, () -> new LocalProcessSandboxBackend(properties));
+    }
+
+    @Test
+    void refusesACgroupRootWhoseControllersCannotBeEnabled() {
+        JudgeProperties properties = properties();
+        // A plain directory has no cgroup.subtree_control to write
+        properties.getSandbox().getLocal().setCgroupRoot(dir.resolve("not-a-cgroup").toString());
+
+        assertThrows(IllegalStateException.class, () -> new LocalProcessSandboxBackend(properties));
+    }
+
+    private JudgeProperties properties() {
+        JudgeProperties properties = new JudgeProperties();
+        properties.setWorkspaceRoot(dir.resolve("workspaces").toString());
+        properties.getTestData().setDir(dir.resolve("test-data").toString());
+        properties.getArtifactCache().setDir(dir.resolve("artifacts").toString());
+        // No delegated cgroup in a test environment
+        properties.getSandbox().getLocal().setAllowUnconfined(true);
+        return properties;
+    }
+
+    private static String run(LocalProcessSandboxBackend backend, Sandbox sandbox, String command) throws Exception {
+        Process process = backend.exec(sandbox, command);
+        process.getOutputStream().close();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(10, TimeUnit.SECONDS));
+        return output;
+    }
+}
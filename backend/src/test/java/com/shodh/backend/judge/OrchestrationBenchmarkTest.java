@@ -0,0 +1,89 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * How many submissions one backend keeps in flight when judging is mostly waiting. Each
+ * simulated submission waits for its sandbox, then drives a fake run through the same
+ * stdin/stdout pumps the judge uses. Platform mode gets a fixed pool the size of Tomcat's
+ * default, virtual mode a thread per submission.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@Slf4j
+class OrchestrationBenchmarkTest {
+    private static final int SUBMISSIONS = 5000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long SANDBOX_WAIT_MS = 200;
+
+    @TempDir
+    Path workspace;
+
+    @Test
+    void platformThreads() throws Exception {
+        run("platform", new JudgeThreads(false), Executors.newFixedThreadPool(PLATFORM_THREADS));
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        run("virtual", new JudgeThreads(true), Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    private void run(String mode, JudgeThreads threads, ExecutorService orchestrators) throws Exception {
+        FakeSandboxBackend backend = new FakeSandboxBackend(new JudgeProperties());
+        Sandbox sandbox = new Sandbox("bench", "python", workspace, 256);
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        mx.resetPeakThreadCount();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        AtomicInteger judged = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(SUBMISSIONS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            orchestrators.execute(() -> {
+                peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(SANDBOX_WAIT_MS);
+                    Process process = backend.exec(sandbox, "python3 solution.py");
+                    StreamPump stdout = StreamPump.start(threads.io(), process.getInputStream(), 1 << 20, 1024, null, null, null);
+                    StreamPump stderr = StreamPump.start(threads.io(), process.getErrorStream(), 1 << 20, 1024, null, null, null);
+                    StreamPump.feed(threads.io(), process.getOutputStream(), out -> out.write("1 2\n".getBytes()));
+                    process.waitFor();
+                    stdout.await(1000);
+                    stderr.await(1000);
+                    judged.incrementAndGet();
+                } catch (Exception e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        done.await(5, TimeUnit.MINUTES);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        orchestrators.shutdown();
+        threads.shutdown();
+
+        log.info("{} submissions={} elapsed={}ms throughput={}/s peakInFlight={} peakPlatformThreads={}",
+            mode, SUBMISSIONS, elapsedMs, SUBMISSIONS * 1000 / Math.max(1, elapsedMs), peakInFlight.get(), mx.getPeakThreadCount());
+        assertEquals(SUBMISSIONS, judged.get());
+    }
+}
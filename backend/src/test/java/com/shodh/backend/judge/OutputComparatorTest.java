@@ -0,0 +1,52 @@
+package com.shodh.backend.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutputComparatorTest {
+
+    @Test
+    void ignoresWhitespaceDifferences() {
+        assertTrue(matches("1 2\n3\n", "  1\t2   3"));
+        assertTrue(matches("", "\n\n"));
+    }
+
+    @Test
+    void rejectsTokenDifferences() {
+        assertFalse(matches("1 2", "12"));
+        assertFalse(matches("12", "1 2"));
+        assertFalse(matches("1 2", "1 23"));
+        assertFalse(matches("1 23", "1 2"));
+        assertFalse(matches("1", "1 2"));
+    }
+
+    @Test
+    void matchesAcrossChunkBoundaries() {
+        OutputComparator comparator = new OutputComparator("hello world".getBytes(StandardCharsets.UTF_8));
+        byte[] output = "hello world\n".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < output.length; i++) {
+            assertTrue(comparator.feed(output, i, 1));
+        }
+        assertTrue(comparator.finish());
+    }
+
+    @Test
+    void stopsAtFirstMismatch() {
+        OutputComparator comparator = new OutputComparator("1 2 3".getBytes(StandardCharsets.UTF_8));
+        byte[] output = "1 9".getBytes(StandardCharsets.UTF_8);
+        assertFalse(comparator.feed(output, 0, output.length));
+        assertTrue(comparator.isMismatch());
+        assertFalse(comparator.finish());
+    }
+
+    private static boolean matches(String expected, String output) {
+        OutputComparator comparator = new OutputComparator(expected.getBytes(StandardCharsets.UTF_8));
+        byte[] bytes = output.getBytes(StandardCharsets.UTF_8);
+        comparator.feed(bytes, 0, bytes.length);
+        return comparator.finish();
+    }
+}
@@ -0,0 +1,57 @@
+package com.shodh.backend.judge;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamPumpTest {
+
+    @Test
+    void outputPastTheLimitIsTruncatedAndStopsTheProcess() throws Exception {
+        Process process = new ProcessBuilder("yes").start();
+        AtomicInteger limitCallbacks = new AtomicInteger();
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            StreamPump pump = StreamPump.start(io, process.getInputStream(), 64 * 1024, 1024, null, () -> {
+                limitCallbacks.incrementAndGet();
+                process.destroyForcibly();
+            }, null);
+
+            assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+            assertTrue(pump.await(5000));
+            assertTrue(pump.isLimitExceeded());
+            assertEquals(1, limitCallbacks.get());
+            assertTrue(pump.getTotalBytes() > 64 * 1024);
+            // Only the retained prefix is kept, with the usual line normalization
+            assertEquals(512, pump.text().split("\n").length);
+        } finally {
+            process.destroyForcibly();
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    void outputWithinTheLimitIsComparedInFull() throws Exception {
+        byte[] output = "1 2 3\n".getBytes(StandardCharsets.UTF_8);
+        OutputComparator comparator = new OutputComparator("1 2 3".getBytes(StandardCharsets.UTF_8));
+        ExecutorService io = Executors.newSingleThreadExecutor();
+        try {
+            StreamPump pump = StreamPump.start(io, new ByteArrayInputStream(output), output.length, 1024, comparator,
+                () -> fail("limit exceeded"), () -> fail("mismatch"));
+
+            assertTrue(pump.await(5000));
+            assertFalse(pump.isLimitExceeded());
+            assertEquals("1 2 3", pump.text());
+            assertTrue(comparator.finish());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCaseSchedulerTest {
+
+    @TempDir
+    Path dir;
+
+    private TestCaseScheduler scheduler;
+
+    @AfterEach
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void laterCasesAreCancelledAfterTheFirstFailure() throws Exception {
+        // One slot and a FIFO pool: cases run one after another, in order
+        scheduler = scheduler(1);
+        FakeSandboxBackend backend = backend(input -> input.equals("2") ? "wrong" : input);
+        AtomicInteger ran = new AtomicInteger();
+
+        List<String> results = scheduler.runInOrder(10, (index, token) -> {
+            ran.incrementAndGet();
+            return runCase(backend, index);
+        }, result -> result.equals("wrong"));
+
+        assertEquals(List.of("0", "1", "wrong"), results);
+        assertEquals(3, ran.get());
+        assertEquals(7L, scheduler.stats().get("cancelledTasks"));
+    }
+
+    @Test
+    void reportedFailureIsTheFirstFailingCaseInOrder() throws Exception {
+        scheduler = scheduler(4);
+        FakeSandboxBackend backend = backend(input -> input.equals("2") || input.equals("5") ? "wrong " + input : input);
+        CountDownLatch laterCaseFailed = new CountDownLatch(1);
+
+        List<String> results = scheduler.runInOrder(8, (index, token) -> {
+            String result = runCase(backend, index);
+            if (index == 5) {
+                laterCaseFailed.countDown();
+            } else if (index == 2) {
+                // Fails only after case 5 has failed already
+                await(laterCaseFailed);
+            }
+            return result;
+        }, result -> result.startsWith("wrong"));
+
+        assertEquals(List.of("0", "1", "wrong 2"), results);
+    }
+
+    @Test
+    void slotIsReleasedWhenACaseThrows() throws Exception {
+        scheduler = scheduler(1);
+        FakeSandboxBackend backend = backend(input -> input);
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> scheduler.runInOrder(3, (index, token) -> {
+            if (index == 1) {
+                throw new IllegalStateException("sandbox lease timed out");
+            }
+            return runCase(backend, index);
+        }, result -> false));
+
+        assertEquals("sandbox lease timed out", thrown.getMessage());
+        assertEquals(0, scheduler.stats().get("busySlots"));
+        String result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> scheduler.runInSlot(() -> runCase(backend, 7)));
+        assertEquals("7", result);
+    }
+
+    private TestCaseScheduler scheduler(int parallelism) {
+        JudgeProperties properties = new JudgeProperties();
+        properties.getScheduler().setParallelism(parallelism);
+        properties.setVirtualThreads(false);
+        return new TestCaseScheduler(properties);
+    }
+
+    private static FakeSandboxBackend backend(UnaryOperator<String> program) {
+        FakeSandboxBackend backend = new FakeSandboxBackend(new JudgeProperties());
+        backend.setProgram(input -> program.apply(new String(input, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+        return backend;
+    }
+
+    private String runCase(FakeSandboxBackend backend, int index) {
+        try {
+            Process process = backend.runMeasured("case-" + index, dir, dir, ResourceUsage.command("usage-" + index, "./solution", 1, 2), 256);
+            try (OutputStream stdin = process.getOutputStream()) {
+                stdin.write(String.valueOf(index).getBytes(StandardCharsets.UTF_8));
+            }
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(process.waitFor(5, TimeUnit.SECONDS));
+            return output;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.shodh.backend.judge;
+
+import com.shodh.backend.config.JudgeProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TestDataStoreTest {
+    // The sandbox user is never the judge's
+    private static final String OTHER_UID = "65534";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void linkedInputIsReadableByAnotherUser() throws Exception {
+        assertReadableByAnotherUser(false);
+    }
+
+    @Test
+    void copiedInputIsReadableByAnotherUser() throws Exception {
+        assertReadableByAnotherUser(true);
+    }
+
+    private void assertReadableByAnotherUser(boolean compress) throws Exception {
+        assumeTrue("root".equals(System.getProperty("user.name")), "switching users needs root");
+        // The store itself stays private to the judge; the workspace is only traversable
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx--x--x"));
+        Path storeDir = Files.createDirectory(dir.resolve("store"), PosixFilePermissions.asFileAttribute(
+            PosixFilePermissions.fromString("rwx------")));
+        Path workspace = Files.createDirectory(dir.resolve("workspace"));
+        Files.setPosixFilePermissions(workspace, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        JudgeProperties properties = new JudgeProperties();
+        properties.getTestData().setDir(storeDir.toString());
+        properties.getTestData().setCompress(compress);
+        TestDataStore store = new TestDataStore(properties);
+        String hash = store.put("1 2\n".getBytes(StandardCharsets.UTF_8));
+
+        Path input = workspace.resolve("input");
+        store.copyTo(hash, input);
+
+        Process process;
+        try {
+            process = new ProcessBuilder("setpriv", "--reuid=" + OTHER_UID, "--regid=" + OTHER_UID, "--clear-groups", "cat", input.toString())
+                .redirectErrorStream(true)
+                .start();
+        } catch (java.io.IOException e) {
+            assumeTrue(false, "setpriv is not available");
+            return;
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        process.waitFor(10, TimeUnit.SECONDS);
+
+        assertEquals("1 2\n", output);
+        assertEquals(0, process.exitValue());
+    }
+}
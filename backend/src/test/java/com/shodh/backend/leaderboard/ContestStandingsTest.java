@@ -0,0 +1,52 @@
+package com.shodh.backend.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContestStandingsTest {
+
+    @Test
+    void earliestAcceptanceOfAProblemCounts() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        ContestStandings standings = new ContestStandings(1L, "Contest", start);
+
+        standings.accept(1, "alice", 10, 100, start.plusMinutes(30));
+        standings.accept(2, "bob", 10, 100, start.plusMinutes(20));
+        assertEquals(1, standings.rankOf(2));
+
+        // Alice's earlier submission is judged last
+        standings.accept(1, "alice", 10, 100, start.plusMinutes(5));
+        standings.accept(1, "alice", 10, 100, start.plusMinutes(40));
+
+        assertEquals(List.of("alice", "bob"), standings.all().stream().map(Standing::username).toList());
+        assertEquals(5, standings.all().get(0).penaltyMinutes());
+        assertEquals(1, standings.all().get(0).problemsSolved());
+    }
+
+    @Test
+    void changesCollapsePerUserUntilDrained() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0);
+        ContestStandings standings = new ContestStandings(1L, "Contest", start);
+        standings.accept(1, "alice", 10, 100, start.plusMinutes(10));
+        standings.accept(2, "bob", 10, 100, start.plusMinutes(20));
+        standings.drainChanges();
+
+        // Bob overtakes alice with two solves in one interval; carol joins below them
+        standings.accept(2, "bob", 11, 100, start.plusMinutes(30));
+        standings.accept(2, "bob", 12, 100, start.plusMinutes(40));
+        standings.accept(3, "carol", 10, 100, start.plusMinutes(50));
+
+        List<RankChange> changes = standings.drainChanges();
+        assertEquals(List.of("bob", "carol"), changes.stream().map(change -> change.standing().username()).toList());
+        assertEquals(2, changes.get(0).oldRank());
+        assertEquals(1, changes.get(0).newRank());
+        assertEquals(3, changes.get(0).standing().problemsSolved());
+        assertEquals(0, changes.get(1).oldRank());
+        assertEquals(3, changes.get(1).newRank());
+        assertEquals(List.of(), standings.drainChanges());
+    }
+}
@@ -0,0 +1,39 @@
+package com.shodh.backend.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankingTreeTest {
+
+    @Test
+    void matchesASortedListUnderRandomUpdates() {
+        Random random = new Random(42);
+        RankingTree<Integer> tree = new RankingTree<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int key = random.nextInt(500);
+            if (expected.contains(key)) {
+                tree.remove(key);
+                expected.remove((Integer) key);
+            } else {
+                tree.insert(key);
+                expected.add(key);
+            }
+        }
+        Collections.sort(expected);
+
+        assertEquals(expected, tree.toList());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), tree.get(i));
+            assertEquals(i, tree.rank(expected.get(i)));
+        }
+        assertEquals(expected.subList(10, 30), tree.range(10, 20));
+        assertEquals(expected.subList(expected.size() - 3, expected.size()), tree.range(expected.size() - 3, 10));
+    }
+}
@@ -0,0 +1,139 @@
+package com.shodh.backend.repository;
+
+import com.shodh.backend.model.*;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk-insert throughput of test cases and submissions, one row per round trip against JDBC
+ * batches of the configured size. Both modes take ids from the same pooled sequences; the
+ * unbatched one is what every insert cost while ids came from identity columns.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark -Dtest=BulkInsertBenchmarkTest}. It uses the
+ * in-memory H2 database by default; to measure PostgreSQL, point it at a scratch database
+ * (the schema is dropped and recreated):
+ * <pre>
+ * -Dspring.datasource.url=jdbc:postgresql://localhost:5432/shodh_bench?reWriteBatchedInserts=true
+ * -Dspring.datasource.username=... -Dspring.datasource.password=...
+ * -Dspring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect
+ * </pre>
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.shodh.backend.repository.BulkInsertBenchmarkTest$StatementCounter",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+@Slf4j
+class BulkInsertBenchmarkTest {
+    private static final int ROWS = 10_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    SessionFactory sessionFactory;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Autowired
+    ProblemRepository problemRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void testCases() {
+        Problem problem = problemRepository.findAll().getFirst();
+        run("testCases", i -> TestCase.builder()
+            .input(i + " " + (i + 1) + "\n")
+            .expectedOutput((2 * i + 1) + "\n")
+            .isSample(false)
+            .problem(problem)
+            .build());
+    }
+
+    @Test
+    void submissions() {
+        Contest contest = contestRepository.findAll().getFirst();
+        Problem problem = problemRepository.findAll().getFirst();
+        User user = userRepository.findAll().getFirst();
+        run("submissions", i -> Submission.builder()
+            .code("print(sum(map(int, input().split())))  # " + i)
+            .language("python")
+            .user(user)
+            .contest(contest)
+            .problem(problem)
+            .build());
+    }
+
+    private void run(String entity, Function<Integer, Object> row) {
+        Integer batchSize = sessionFactory.getSessionFactoryOptions().getJdbcBatchSize();
+        for (int round = 0; round < ROUNDS; round++) {
+            // The first round warms up the JIT and the connection pool
+            boolean report = round == ROUNDS - 1;
+            insert(entity, 1, row, report);
+            insert(entity, batchSize, row, report);
+        }
+    }
+
+    private void insert(String entity, int batchSize, Function<Integer, Object> row, boolean report) {
+        List<Object> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(row.apply(i));
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        StatementCounter.STATEMENTS.set(0);
+        long start = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            rows.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        if (report) {
+            log.info("{} batchSize={} rows={} elapsed={}ms throughput={}/s statements={}",
+                entity, batchSize, ROWS, elapsedMs, ROWS * 1000 / elapsedMs, StatementCounter.STATEMENTS.get());
+        }
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+    }
+
+    /**
+     * Counts the SQL statements Hibernate prepares: one per row unbatched, one per batch otherwise.
+     */
+    public static class StatementCounter implements StatementInspector {
+        static final AtomicLong STATEMENTS = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.incrementAndGet();
+            return sql;
+        }
+    }
+}
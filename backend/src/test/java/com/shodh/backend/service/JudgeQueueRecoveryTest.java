@@ -0,0 +1,198 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.config.JudgeProperties;
+import com.shodh.backend.judge.FakeSandboxBackend;
+import com.shodh.backend.judge.JudgeConcurrencyLimiter;
+import com.shodh.backend.judge.JudgeThreads;
+import com.shodh.backend.model.*;
+import com.shodh.backend.repository.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * What keeps a submission from being lost or counted twice when a judge node dies
+ * mid-judge. The application's own dispatcher is replaced by a mock, so no worker but the
+ * ones started here touches the queue.
+ */
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    // Cached contexts of other test classes keep their dispatchers polling the shared in-memory database
+    "spring.datasource.url=jdbc:h2:mem:judge-queue-recovery",
+    // The double-judging test runs a second judge while the first holds a slot
+    "judge.scheduler.parallelism=2"
+})
+class JudgeQueueRecoveryTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    JudgeJobRepository jobRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    SubmissionRepository submissionRepository;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Autowired
+    ProblemRepository problemRepository;
+
+    @Autowired
+    TestCaseRepository testCaseRepository;
+
+    @Autowired
+    JudgeService judgeService;
+
+    @Autowired
+    ProblemStatsService problemStatsService;
+
+    @Autowired
+    JudgeProperties judgeProperties;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    JudgeConcurrencyLimiter limiter;
+
+    @Autowired
+    JudgeThreads judgeThreads;
+
+    @Autowired
+    SubmissionEventService submissionEventService;
+
+    @Autowired
+    FakeSandboxBackend backend;
+
+    private JudgeDispatcher worker;
+
+    @AfterEach
+    void stopWorker() {
+        backend.setProgram(input -> input);
+        if (worker != null) {
+            worker.shutdown();
+        }
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedByAnotherWorker() throws Exception {
+        Problem problem = echoProblem();
+        Submission submission = submission(problem, SubmissionStatus.RUNNING);
+        JudgeJob job = jobRepository.save(JudgeJob.builder()
+            .submissionId(submission.getId())
+            .status(JudgeJobStatus.LEASED)
+            .userId(submission.getUser().getId())
+            .contestId(problem.getContest().getId())
+            .lane(JudgeLane.CONTEST)
+            .attempts(1)
+            .leaseOwner("crashed-node")
+            .leaseExpiresAt(LocalDateTime.now().minusMinutes(1))
+            .build());
+
+        worker = new JudgeDispatcher(jobRepository, userRepository, submissionRepository, judgeService, judgeProperties,
+            transactionTemplate, limiter, judgeThreads, submissionEventService);
+        worker.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (jobRepository.existsById(job.getId()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertFalse(jobRepository.existsById(job.getId()));
+        assertEquals(SubmissionStatus.ACCEPTED, submissionRepository.findById(submission.getId()).orElseThrow().getStatus());
+        assertEquals(1L, worker.stats().get("reclaimed"));
+    }
+
+    @Test
+    void completeRefusesAStaleOwner() {
+        Problem problem = echoProblem();
+        Submission submission = submission(problem, SubmissionStatus.RUNNING);
+        LocalDateTime now = LocalDateTime.now();
+        JudgeJob job = jobRepository.save(JudgeJob.builder()
+            .submissionId(submission.getId())
+            .status(JudgeJobStatus.QUEUED)
+            .lane(JudgeLane.CONTEST)
+            .build());
+
+        assertEquals(1, jobRepository.claim(job.getId(), "node-a", now.minusSeconds(1), now.minusMinutes(1)));
+        // A live lease is not taken over
+        assertEquals(0, jobRepository.claim(job.getId(), "node-b", now.plusMinutes(2), now.minusMinutes(1)));
+        assertEquals(1, jobRepository.claim(job.getId(), "node-b", now.plusMinutes(2), now));
+
+        assertEquals(0, jobRepository.renewLeases(List.of(job.getId()), "node-a", now.plusMinutes(2)));
+        assertEquals(0, jobRepository.complete(job.getId(), "node-a"));
+        assertTrue(jobRepository.existsById(job.getId()));
+        assertEquals(1, jobRepository.complete(job.getId(), "node-b"));
+        assertFalse(jobRepository.existsById(job.getId()));
+    }
+
+    @Test
+    void verdictSavedTwiceIsCountedOnce() throws Exception {
+        Problem problem = echoProblem();
+        Submission submission = submission(problem, SubmissionStatus.PENDING);
+        // While this node judges, a node that took over its lease judges the same submission to the end
+        AtomicBoolean tookOver = new AtomicBoolean();
+        backend.setProgram(input -> {
+            if (tookOver.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> judgeService.judgeSubmission(submission.getId())).join();
+            }
+            return input;
+        });
+
+        judgeService.judgeSubmission(submission.getId());
+
+        assertTrue(tookOver.get());
+        assertEquals(SubmissionStatus.ACCEPTED, submissionRepository.findById(submission.getId()).orElseThrow().getStatus());
+        assertEquals(1, problemStatsService.get(List.of(problem.getId())).get(problem.getId()).accepted());
+    }
+
+    private Problem echoProblem() {
+        return transactionTemplate.execute(status -> {
+            Contest contest = contestRepository.findAll().getFirst();
+            Problem problem = problemRepository.save(Problem.builder()
+                .title("Echo")
+                .description("Print the input")
+                .timeLimit(1)
+                .memoryLimit(256)
+                .points(100)
+                .contest(contest)
+                .build());
+            testCaseRepository.save(TestCase.builder()
+                .input("42\n")
+                .expectedOutput("42\n")
+                .isSample(false)
+                .problem(problem)
+                .build());
+            return problem;
+        });
+    }
+
+    private Submission submission(Problem problem, SubmissionStatus status) {
+        User user = userRepository.save(User.builder().username("user-" + UUID.randomUUID()).build());
+        return submissionRepository.save(Submission.builder()
+            .code("print(input())")
+            .language("python")
+            .status(status)
+            .user(user)
+            .contest(problem.getContest())
+            .problem(problem)
+            .build());
+    }
+}
@@ -0,0 +1,121 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.judge.FakeSandboxBackend;
+import com.shodh.backend.model.*;
+import com.shodh.backend.repository.*;
+import com.shodh.backend.service.JudgeService.ExecutionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:judge-output-limit",
+    "judge.output.limit=1KB"
+})
+class JudgeServiceOutputLimitTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    JudgeService judgeService;
+
+    @Autowired
+    FakeSandboxBackend backend;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    SubmissionRepository submissionRepository;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Autowired
+    ProblemRepository problemRepository;
+
+    @Autowired
+    TestCaseRepository testCaseRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void resetProgram() {
+        backend.setProgram(input -> input);
+    }
+
+    @Test
+    void outputPastTheLimitIsOutputLimitExceeded() {
+        Submission submission = submission();
+        byte[] flood = new byte[8 * 1024];
+        Arrays.fill(flood, (byte) 'y');
+        backend.setProgram(input -> flood);
+
+        judgeService.judgeSubmission(submission.getId());
+
+        assertEquals(SubmissionStatus.OUTPUT_LIMIT_EXCEEDED, submissionRepository.findById(submission.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void outputLimitRanksBelowResourceLimitsAndAboveWrongAnswers() {
+        assertEquals(SubmissionStatus.MEMORY_LIMIT_EXCEEDED, verdict(result -> result.memoryLimitExceeded = true));
+        assertEquals(SubmissionStatus.TIME_LIMIT_EXCEEDED, verdict(result -> result.timedOut = true));
+        // The killed program's exit, stderr and truncated output all say nothing about its answer
+        assertEquals(SubmissionStatus.OUTPUT_LIMIT_EXCEEDED, verdict(result -> {
+            result.mismatchAborted = true;
+            result.error = "Broken pipe";
+        }));
+        assertEquals(SubmissionStatus.OUTPUT_LIMIT_EXCEEDED, verdict(result -> result.outputMatched = true));
+        assertEquals(SubmissionStatus.OUTPUT_LIMIT_EXCEEDED, verdict(result -> { }));
+    }
+
+    private static SubmissionStatus verdict(Consumer<ExecutionResult> setup) {
+        ExecutionResult result = new ExecutionResult("yyyy", null, 1000L, 0L, false);
+        result.outputLimitExceeded = true;
+        setup.accept(result);
+        JudgeService.applyVerdict(result);
+        return result.verdict;
+    }
+
+    private Submission submission() {
+        return transactionTemplate.execute(status -> {
+            Contest contest = contestRepository.findAll().getFirst();
+            Problem problem = problemRepository.save(Problem.builder()
+                .title("Echo")
+                .description("Print the input")
+                .timeLimit(1)
+                .memoryLimit(256)
+                .points(100)
+                .contest(contest)
+                .build());
+            testCaseRepository.save(TestCase.builder()
+                .input("42\n")
+                .expectedOutput("42\n")
+                .isSample(false)
+                .problem(problem)
+                .build());
+            User user = userRepository.save(User.builder().username("user-" + UUID.randomUUID()).build());
+            return submissionRepository.save(Submission.builder()
+                .code("print(input())")
+                .language("python")
+                .status(SubmissionStatus.PENDING)
+                .user(user)
+                .contest(contest)
+                .problem(problem)
+                .build());
+        });
+    }
+}
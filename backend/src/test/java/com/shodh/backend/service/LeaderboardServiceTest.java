@@ -0,0 +1,67 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.leaderboard.LeaderboardSnapshot;
+import com.shodh.backend.model.Contest;
+import com.shodh.backend.repository.ContestRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same configuration as ContestControllerTest, so both run in one application context
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:leaderboard",
+    "leaderboard.finished-idle-timeout=0s"
+})
+@AutoConfigureMockMvc
+class LeaderboardServiceTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    LeaderboardService leaderboardService;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Test
+    void pageReadOftenOutlivesAScanOfOtherPages() {
+        Contest contest = contest(LocalDateTime.now().plusHours(1));
+        LeaderboardSnapshot hot = leaderboardService.getSnapshot(contest.getId(), 0, 10);
+
+        for (int offset = 1; offset <= 100; offset++) {
+            leaderboardService.getSnapshot(contest.getId(), offset, 10);
+            assertSame(hot, leaderboardService.getSnapshot(contest.getId(), 0, 10));
+        }
+    }
+
+    @Test
+    void finishedContestIsDroppedAndRebuiltOnTheNextRead() {
+        Contest running = contest(LocalDateTime.now().plusHours(1));
+        Contest finished = contest(LocalDateTime.now().minusMinutes(1));
+        LeaderboardSnapshot runningPage = leaderboardService.getSnapshot(running.getId(), 0, 10);
+        LeaderboardSnapshot finishedPage = leaderboardService.getSnapshot(finished.getId(), 0, 10);
+
+        leaderboardService.resync();
+
+        assertSame(runningPage, leaderboardService.getSnapshot(running.getId(), 0, 10));
+        // Rebuilt standings get a new ETag
+        assertNotEquals(finishedPage.etag(), leaderboardService.getSnapshot(finished.getId(), 0, 10).etag());
+    }
+
+    private Contest contest(LocalDateTime endTime) {
+        return contestRepository.save(Contest.builder()
+            .title("Contest")
+            .startTime(endTime.minusHours(2))
+            .endTime(endTime)
+            .build());
+    }
+}
@@ -0,0 +1,134 @@
+package com.shodh.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.backend.config.LeaderboardProperties;
+import com.shodh.backend.dto.LeaderboardDelta;
+import com.shodh.backend.judge.JudgeThreads;
+import com.shodh.backend.leaderboard.LeaderboardSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderboardStreamServiceTest {
+    private static final long CONTEST_ID = 1L;
+
+    private final AtomicLong version = new AtomicLong();
+    private LeaderboardStreamService streams;
+
+    @BeforeEach
+    void setUp() {
+        LeaderboardService leaderboardService = mock(LeaderboardService.class);
+        when(leaderboardService.getSnapshot(anyLong(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            long current = version.get();
+            return new LeaderboardSnapshot(current, "\"" + current + "\"",
+                ("{\"version\":" + current + "}").getBytes(StandardCharsets.UTF_8));
+        });
+        // Every flush finds the standings changed once more
+        when(leaderboardService.drainDelta(anyLong())).thenAnswer(invocation -> LeaderboardDelta.builder()
+            .contestId(CONTEST_ID)
+            .version(version.incrementAndGet())
+            .changes(List.of())
+            .build());
+
+        LeaderboardProperties properties = new LeaderboardProperties();
+        properties.getStream().setQueueCapacity(2);
+        streams = new LeaderboardStreamService(leaderboardService, new ObjectMapper(), properties, new JudgeThreads(false));
+    }
+
+    @AfterEach
+    void shutdown() {
+        streams.shutdown();
+    }
+
+    @Test
+    void slowSubscriberGetsQueuedDeltasWithoutHoldingUpOthers() throws Exception {
+        Client slow = new Client(true);
+        Client fast = new Client(false);
+        streams.subscribe(CONTEST_ID, 10, slow);
+        assertTrue(slow.stalled.await(5, TimeUnit.SECONDS));
+        streams.subscribe(CONTEST_ID, 10, fast);
+        fast.awaitEvents(1);
+
+        streams.flush();
+        streams.flush();
+
+        assertEquals(List.of("snapshot 0", "delta 1", "delta 2"), fast.awaitEvents(3));
+        slow.resume.countDown();
+        assertEquals(List.of("snapshot 0", "delta 1", "delta 2"), slow.awaitEvents(3));
+        assertEquals(0L, streams.stats().get("resyncs"));
+    }
+
+    @Test
+    void overflowingSubscriberIsResyncedWithASnapshot() throws Exception {
+        Client slow = new Client(true);
+        streams.subscribe(CONTEST_ID, 10, slow);
+        assertTrue(slow.stalled.await(5, TimeUnit.SECONDS));
+
+        // One more delta than the queue holds
+        for (int i = 0; i < 3; i++) {
+            streams.flush();
+        }
+        slow.resume.countDown();
+
+        assertEquals(List.of("snapshot 0", "snapshot 3"), slow.awaitEvents(2));
+        assertEquals(1L, streams.stats().get("resyncs"));
+        assertEquals(3L, streams.stats().get("deltasPublished"));
+    }
+
+    /**
+     * Records events as "name version". A stalled client blocks in its first send, like a
+     * client that stopped reading once the socket buffers are full.
+     */
+    private static final class Client extends SseEmitter {
+        private static final Pattern EVENT = Pattern.compile("event:(\\w+)\\ndata:\\{.*\"version\":(\\d+)", Pattern.DOTALL);
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch stalled = new CountDownLatch(1);
+        final CountDownLatch resume;
+
+        Client(boolean stall) {
+            this.resume = new CountDownLatch(stall ? 1 : 0);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            stalled.countDown();
+            try {
+                assertTrue(resume.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            String text = builder.build().stream()
+                .map(part -> part.getData().toString())
+                .collect(Collectors.joining());
+            Matcher matcher = EVENT.matcher(text);
+            assertTrue(matcher.find(), text);
+            events.add(matcher.group(1) + " " + matcher.group(2));
+        }
+
+        List<String> awaitEvents(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return List.copyOf(events);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.model.Contest;
+import com.shodh.backend.model.Problem;
+import com.shodh.backend.model.ProblemStats;
+import com.shodh.backend.repository.ContestRepository;
+import com.shodh.backend.repository.ProblemRepository;
+import com.shodh.backend.repository.ProblemStatsRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:problem-stats",
+    // Only the flushes the tests run
+    "problem-stats.flush-interval=1h"
+})
+class ProblemStatsServiceTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    ProblemStatsService problemStatsService;
+
+    @Autowired
+    ProblemStatsRepository statsRepository;
+
+    @Autowired
+    ProblemRepository problemRepository;
+
+    @Autowired
+    ContestRepository contestRepository;
+
+    @Test
+    void bufferedCountsAreAddedToTheRowOncePerFlush() {
+        Long problemId = problem();
+        // Counts already in the row, e.g. flushed by another node
+        statsRepository.save(new ProblemStats(problemId, 10L, 1L));
+        for (int i = 0; i < 3; i++) {
+            problemStatsService.recordSubmitted(problemId);
+        }
+        problemStatsService.recordAccepted(problemId);
+        problemStatsService.recordAccepted(problemId);
+        assertEquals(new ProblemStatsService.Counts(13, 3), counts(problemId));
+
+        problemStatsService.flush();
+        assertRow(problemId, 13, 3);
+
+        problemStatsService.recordSubmitted(problemId);
+        problemStatsService.flush();
+        problemStatsService.flush();
+        assertRow(problemId, 14, 3);
+        assertEquals(new ProblemStatsService.Counts(14, 3), counts(problemId));
+    }
+
+    @Test
+    void countsRecordedDuringFlushesAreNeitherLostNorDoubled() {
+        Long problemId = problem();
+        int threads = 4;
+        int submissionsPerThread = 5000;
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < submissionsPerThread; i++) {
+                    problemStatsService.recordSubmitted(problemId);
+                    if (i % 10 == 0) {
+                        problemStatsService.recordAccepted(problemId);
+                    }
+                }
+            }));
+        }
+        while (!writers.stream().allMatch(CompletableFuture::isDone)) {
+            problemStatsService.flush();
+        }
+        writers.forEach(CompletableFuture::join);
+        problemStatsService.flush();
+
+        long submitted = (long) threads * submissionsPerThread;
+        long accepted = (long) threads * (submissionsPerThread / 10);
+        assertRow(problemId, submitted, accepted);
+        assertEquals(new ProblemStatsService.Counts(submitted, accepted), counts(problemId));
+    }
+
+    private ProblemStatsService.Counts counts(Long problemId) {
+        return problemStatsService.get(List.of(problemId)).get(problemId);
+    }
+
+    private void assertRow(Long problemId, long submitted, long accepted) {
+        ProblemStats row = statsRepository.findById(problemId).orElseThrow();
+        assertEquals(submitted, row.getTotalSubmissions());
+        assertEquals(accepted, row.getAcceptedSubmissions());
+    }
+
+    private Long problem() {
+        Contest contest = contestRepository.findAll().getFirst();
+        return problemRepository.save(Problem.builder()
+            .title("Counted")
+            .description("Submitted to a lot")
+            .timeLimit(1)
+            .memoryLimit(256)
+            .points(100)
+            .contest(contest)
+            .build()).getId();
+    }
+}
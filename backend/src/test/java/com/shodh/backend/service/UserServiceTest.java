@@ -0,0 +1,71 @@
+package com.shodh.backend.service;
+
+import com.shodh.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "judge.sandbox.backend=fake",
+    "spring.jpa.show-sql=false",
+    "spring.datasource.url=jdbc:h2:mem:users",
+    // Every caller that loses the race logs the unique constraint violation
+    "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=off"
+})
+class UserServiceTest {
+
+    @MockitoBean
+    JudgeDispatcher dispatcher;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Test
+    void concurrentFirstSubmissionsGetTheSameUser() throws Exception {
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            // Several rounds, each a fresh username raced by every caller
+            for (int round = 0; round < 10; round++) {
+                String username = "user-" + UUID.randomUUID();
+                long usersBefore = userRepository.count();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Long>> ids = new ArrayList<>();
+                for (int i = 0; i < callers; i++) {
+                    ids.add(executor.submit(() -> {
+                        start.await();
+                        return userService.getOrCreateUserId(username);
+                    }));
+                }
+                start.countDown();
+
+                Set<Long> distinct = new HashSet<>();
+                for (Future<Long> id : ids) {
+                    distinct.add(id.get(10, TimeUnit.SECONDS));
+                }
+                assertEquals(1, distinct.size());
+                assertEquals(usersBefore + 1, userRepository.count());
+                assertEquals(distinct.iterator().next(), userRepository.findIdByUsername(username).orElseThrow());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
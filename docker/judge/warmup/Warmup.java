@@ -0,0 +1,47 @@
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Exercises the JDK classes a typical solution and the judge's generated main() touch
+ * (buffered stdin, tokenizing, collections, streams, formatted output). The classes it
+ * loads are dumped into the CDS archive the judge passes to every java run.
+ */
+public class Warmup {
+    public static void main(String[] args) throws Exception {
+        BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+        String line = br.readLine();
+        String[] parts = (line == null ? "3 1 2" : line).trim().split("\\s+");
+        int[] nums = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            nums[i] = Integer.parseInt(parts[i]);
+        }
+        StringTokenizer st = new StringTokenizer(line == null ? "3 1 2" : line);
+        List<Long> values = new ArrayList<>();
+        while (st.hasMoreTokens()) {
+            values.add(Long.parseLong(st.nextToken()));
+        }
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int x : nums) {
+            counts.merge(x, 1, Integer::sum);
+        }
+        Deque<Integer> deque = new ArrayDeque<>();
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        Set<String> seen = new HashSet<>();
+        for (int x : nums) {
+            deque.push(x);
+            heap.add(x);
+            seen.add(String.valueOf(x));
+        }
+        Arrays.sort(nums);
+        Collections.sort(values);
+        StringBuilder sb = new StringBuilder();
+        sb.append(Arrays.toString(nums)).append(' ').append(new TreeMap<>(counts)).append(' ').append(heap.peek());
+        System.out.println(sb);
+        System.out.println(values.stream().map(String::valueOf).collect(Collectors.joining(" ")));
+        System.out.printf("%d %.2f%n", deque.size(), seen.size() / 2.0);
+        try (Scanner scanner = new Scanner("1 2")) {
+            System.out.println(scanner.nextInt() + scanner.nextInt());
+        }
+    }
+}
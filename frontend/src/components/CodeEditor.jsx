@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import Editor from "@monaco-editor/react";
 import { motion } from "framer-motion";
 import toast from "react-hot-toast";
@@ -49,6 +49,8 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
   const [submitting, setSubmitting] = useState(false);
   const [submissionStatus, setSubmissionStatus] = useState(null);
   const [submissionId, setSubmissionId] = useState(null);
+  const [testProgress, setTestProgress] = useState(null);
+  const eventSourceRef = useRef(null);
 
   const languages = [
     { value: "java", label: "Java", mode: "java" },
@@ -143,6 +145,7 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
 
     setSubmitting(true);
     setSubmissionStatus("PENDING");
+    setTestProgress(null);
 
     try {
       // Submit code
@@ -158,15 +161,81 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
       setSubmissionId(newSubmissionId);
       toast.success("Code submitted! Judging in progress...");
 
-      // Start polling for status
-      pollSubmissionStatus(newSubmissionId);
+      // Follow judging progress
+      watchSubmission(newSubmissionId);
     } catch (error) {
-      toast.error("Failed to submit code");
+      if (error.response?.status === 429) {
+        const retryAfter = error.response.headers?.["retry-after"];
+        toast.error(
+          `${error.response.data?.message ?? "The judge is busy"}${retryAfter ? ` - try again in ${retryAfter}s` : ""}`
+        );
+      } else {
+        toast.error("Failed to submit code");
+      }
       setSubmitting(false);
       setSubmissionStatus(null);
     }
   };
 
+  // Stop listening when the editor goes away
+  useEffect(() => () => eventSourceRef.current?.close(), []);
+
+  const handleVerdict = (status) => {
+    setSubmissionStatus(status);
+    setSubmitting(false);
+
+    if (status === "ACCEPTED") {
+      toast.success("🎉 Solution Accepted!");
+      if (onSubmissionUpdate) onSubmissionUpdate();
+    } else if (status === "WRONG_ANSWER") {
+      toast.error("❌ Wrong Answer");
+    } else if (status === "TIME_LIMIT_EXCEEDED") {
+      toast.error("⏱️ Time Limit Exceeded");
+    } else if (status === "RUNTIME_ERROR") {
+      toast.error("💥 Runtime Error");
+    } else if (status === "COMPILATION_ERROR") {
+      toast.error("🔨 Compilation Error");
+    } else if (status === "MEMORY_LIMIT_EXCEEDED") {
+      toast.error("🧠 Memory Limit Exceeded");
+    } else if (status === "OUTPUT_LIMIT_EXCEEDED") {
+      toast.error("📜 Output Limit Exceeded");
+    }
+  };
+
+  // Push updates over server-sent events; polling is only the fallback
+  const watchSubmission = (subId) => {
+    eventSourceRef.current?.close();
+    if (typeof EventSource === "undefined") {
+      pollSubmissionStatus(subId);
+      return;
+    }
+
+    const source = new EventSource(submissionAPI.submissionEventsUrl(subId), {
+      withCredentials: true,
+    });
+    eventSourceRef.current = source;
+    let finished = false;
+
+    source.addEventListener("status", (event) => {
+      const data = JSON.parse(event.data);
+      setSubmissionStatus(data.status);
+      if (data.totalTests) {
+        setTestProgress({ completed: data.completedTests, total: data.totalTests });
+      }
+    });
+    source.addEventListener("verdict", (event) => {
+      finished = true;
+      source.close();
+      handleVerdict(JSON.parse(event.data).status);
+    });
+    source.onerror = () => {
+      if (!finished) {
+        source.close();
+        pollSubmissionStatus(subId);
+      }
+    };
+  };
+
   const pollSubmissionStatus = async (subId) => {
     let attempts = 0;
     const maxAttempts = 30; // Poll for max 60 seconds (30 * 2)
@@ -180,21 +249,7 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
 
         if (status !== "PENDING" && status !== "RUNNING") {
           // Final status reached
-          setSubmitting(false);
-
-          if (status === "ACCEPTED") {
-            toast.success("🎉 Solution Accepted!");
-            if (onSubmissionUpdate) onSubmissionUpdate();
-          } else if (status === "WRONG_ANSWER") {
-            toast.error("❌ Wrong Answer");
-          } else if (status === "TIME_LIMIT_EXCEEDED") {
-            toast.error("⏱️ Time Limit Exceeded");
-          } else if (status === "RUNTIME_ERROR") {
-            toast.error("💥 Runtime Error");
-          } else if (status === "COMPILATION_ERROR") {
-            toast.error("🔨 Compilation Error");
-          }
-
+          handleVerdict(status);
           return; // Stop polling
         }
 
@@ -227,6 +282,8 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
       case "TIME_LIMIT_EXCEEDED":
       case "RUNTIME_ERROR":
       case "COMPILATION_ERROR":
+      case "MEMORY_LIMIT_EXCEEDED":
+      case "OUTPUT_LIMIT_EXCEEDED":
         return "text-red-400";
       default:
         return "text-gray-400";
@@ -249,6 +306,10 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
         return "💥";
       case "COMPILATION_ERROR":
         return "🔨";
+      case "MEMORY_LIMIT_EXCEEDED":
+        return "🧠";
+      case "OUTPUT_LIMIT_EXCEEDED":
+        return "📜";
       default:
         return "❓";
     }
@@ -305,6 +366,8 @@ const CodeEditor = ({ problemId, contestId, onSubmissionUpdate }) => {
                   )}`}
                 >
                   {submissionStatus.replace("_", " ")}
+                  {submissionStatus === "RUNNING" && testProgress &&
+                    ` ${testProgress.completed}/${testProgress.total}`}
                 </span>
               </motion.div>
             )}
@@ -2,14 +2,67 @@ import { useState, useEffect } from "react";
 import { motion } from "framer-motion";
 import { contestAPI } from "../services/api";
 
+// Rows fetched from the top of the board; the current user's neighborhood is fetched separately
+const TOP_ENTRIES = 50;
+const NEIGHBORS = 2;
+
+// Applies a delta to the top entries: changed users are taken out and put back at their new
+// rank, best first; everyone else keeps their relative order
+const applyDelta = (board, delta) => {
+  const changed = new Set(delta.changes.map((change) => change.username));
+  const entries = board.entries.filter((entry) => !changed.has(entry.username));
+  for (const change of delta.changes) {
+    if (change.newRank <= TOP_ENTRIES) {
+      entries.splice(change.newRank - 1, 0, {
+        username: change.username,
+        problemsSolved: change.problemsSolved,
+        totalPoints: change.totalPoints,
+        totalTime: change.totalTime,
+      });
+    }
+  }
+  return {
+    ...board,
+    lastUpdated: delta.lastUpdated,
+    totalEntries: delta.totalEntries,
+    entries: entries
+      .slice(0, TOP_ENTRIES)
+      .map((entry, index) => ({ ...entry, rank: index + 1 })),
+  };
+};
+
 const Leaderboard = ({ contestId }) => {
   const [leaderboard, setLeaderboard] = useState(null);
+  const [userStanding, setUserStanding] = useState(null);
   const [loading, setLoading] = useState(true);
 
+  const fetchUserStanding = async (board) => {
+    const username = localStorage.getItem("username");
+    const onPage = board.entries?.some((entry) => entry.username === username);
+    if (username && !onPage && board.totalEntries > TOP_ENTRIES) {
+      try {
+        const standing = await contestAPI.getUserStanding(
+          contestId,
+          username,
+          NEIGHBORS
+        );
+        setUserStanding(standing.data);
+      } catch {
+        // Not on the board yet
+        setUserStanding(null);
+      }
+    } else {
+      setUserStanding(null);
+    }
+  };
+
   const fetchLeaderboard = async () => {
     try {
-      const response = await contestAPI.getLeaderboard(contestId);
+      const response = await contestAPI.getLeaderboard(contestId, {
+        top: TOP_ENTRIES,
+      });
       setLeaderboard(response.data);
+      await fetchUserStanding(response.data);
     } catch (error) {
       console.error("Error fetching leaderboard:", error);
     } finally {
@@ -18,10 +71,45 @@ const Leaderboard = ({ contestId }) => {
   };
 
   useEffect(() => {
-    fetchLeaderboard();
-    // Poll every 15 seconds
-    const interval = setInterval(fetchLeaderboard, 15000);
-    return () => clearInterval(interval);
+    if (typeof EventSource === "undefined") {
+      fetchLeaderboard();
+      // Poll every 15 seconds
+      const interval = setInterval(fetchLeaderboard, 15000);
+      return () => clearInterval(interval);
+    }
+
+    let board = null;
+    let pollInterval = null;
+    const source = new EventSource(
+      contestAPI.leaderboardStreamUrl(contestId, TOP_ENTRIES),
+      { withCredentials: true }
+    );
+    source.addEventListener("snapshot", (event) => {
+      board = JSON.parse(event.data);
+      setLeaderboard(board);
+      setLoading(false);
+      fetchUserStanding(board);
+    });
+    source.addEventListener("delta", (event) => {
+      if (board) {
+        board = applyDelta(board, JSON.parse(event.data));
+        setLeaderboard(board);
+      }
+    });
+    source.onerror = () => {
+      // EventSource reconnects by itself (and gets a new snapshot) unless the server refused the stream
+      if (source.readyState === EventSource.CLOSED && !pollInterval) {
+        fetchLeaderboard();
+        pollInterval = setInterval(fetchLeaderboard, 15000);
+      }
+    };
+    // Deltas only cover the top entries; the user's own neighborhood is refreshed slowly
+    const standingInterval = setInterval(() => board && fetchUserStanding(board), 30000);
+    return () => {
+      source.close();
+      clearInterval(standingInterval);
+      clearInterval(pollInterval);
+    };
   }, [contestId]);
 
   if (loading) {
@@ -44,7 +132,7 @@ const Leaderboard = ({ contestId }) => {
           className="glass-card p-4 text-center"
         >
           <div className="text-3xl font-bold text-blue-400">
-            {leaderboard?.entries?.length || 0}
+            {leaderboard?.totalEntries ?? leaderboard?.entries?.length ?? 0}
           </div>
           <div className="text-sm text-gray-400 mt-1">Total Participants</div>
         </motion.div>
@@ -105,14 +193,34 @@ const Leaderboard = ({ contestId }) => {
                 </tr>
               </thead>
               <tbody>
-                {leaderboard.entries.map((entry, index) => {
+                {[
+                  ...leaderboard.entries,
+                  // The user's own neighborhood below the top entries, after a gap row
+                  ...(userStanding
+                    ? [
+                        { gap: true },
+                        ...userStanding.entries.filter(
+                          (entry) => entry.rank > leaderboard.entries.length
+                        ),
+                      ]
+                    : []),
+                ].map((entry, index) => {
+                  if (entry.gap) {
+                    return (
+                      <tr key="gap" className="border-b border-glass-border">
+                        <td colSpan={5} className="p-2 text-center text-gray-500">
+                          …
+                        </td>
+                      </tr>
+                    );
+                  }
                   const isCurrentUser = entry.username === currentUsername;
                   return (
                     <motion.tr
                       key={entry.username}
                       initial={{ opacity: 0, x: -20 }}
                       animate={{ opacity: 1, x: 0 }}
-                      transition={{ delay: index * 0.05 }}
+                      transition={{ delay: Math.min(index, 10) * 0.05 }}
                       className={`border-b border-glass-border hover:bg-glass transition-colors ${
                         isCurrentUser ? "bg-blue-500/10" : ""
                       }`}
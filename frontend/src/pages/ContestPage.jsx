@@ -25,16 +25,45 @@ const ContestPage = () => {
     }
 
     fetchContest();
-    // Periodically refresh contest (problem stats and participants)
-    const id = setInterval(fetchContest, 15000);
+    // Periodically refresh problem stats and participants; the statement does not change
+    const id = setInterval(fetchStatus, 15000);
     return () => clearInterval(id);
   }, [contestId, navigate]);
 
+  // Merges the changing parts of the contest into the statement
+  const applyStatus = (status) => {
+    const stats = new Map(status.problems.map((problem) => [problem.id, problem]));
+    setContest((prev) =>
+      prev && {
+        ...prev,
+        participantsCount: status.participantsCount,
+        isActive: status.isActive,
+        problems: prev.problems.map((problem) => ({
+          ...problem,
+          ...stats.get(problem.id),
+        })),
+      }
+    );
+  };
+
+  const fetchStatus = async () => {
+    try {
+      const response = await contestAPI.getContestStatus(contestId);
+      applyStatus(response.data);
+    } catch (error) {
+      console.error("Error fetching contest status:", error);
+    }
+  };
+
   const fetchContest = async () => {
     try {
-      const response = await contestAPI.getContest(contestId);
-      const data = response.data;
+      const [statement, status] = await Promise.all([
+        contestAPI.getContestStatement(contestId),
+        contestAPI.getContestStatus(contestId),
+      ]);
+      const data = statement.data;
       setContest(data);
+      applyStatus(status.data);
       // preserve selection if valid; set default only when none/invalid
       setSelectedProblemId((prev) => {
         const list = data.problems || [];
@@ -62,8 +91,8 @@ const ContestPage = () => {
   const handleSubmissionUpdate = () => {
     // Refresh leaderboard after successful submission
     setLeaderboardKey((prev) => prev + 1);
-    // Also refresh contest details to update submissions/accepted/participants
-    fetchContest();
+    // Also refresh submissions/accepted/participants
+    fetchStatus();
   };
 
   if (loading) {
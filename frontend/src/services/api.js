@@ -1,6 +1,6 @@
 import axios from "axios";
 
-const API_BASE_URL = "http://localhost:8080/api";
+const API_BASE_URL = import.meta.env.VITE_API_URL || "http://localhost:8080/api";
 
 const api = axios.create({
   baseURL: API_BASE_URL,
@@ -13,13 +13,29 @@ const api = axios.create({
 // Contest API
 export const contestAPI = {
   getContest: (contestId) => api.get(`/contests/${contestId}`),
-  getLeaderboard: (contestId) => api.get(`/contests/${contestId}/leaderboard`),
+  // Statements only; cached by the browser and revalidated by ETag
+  getContestStatement: (contestId) => api.get(`/contests/${contestId}/statement`),
+  // Participants, isActive and per-problem submission counts
+  getContestStatus: (contestId) => api.get(`/contests/${contestId}/status`),
+  getLeaderboard: (contestId, params) =>
+    api.get(`/contests/${contestId}/leaderboard`, { params }),
+  getUserStanding: (contestId, username, neighbors) =>
+    api.get(
+      `/contests/${contestId}/leaderboard/users/${encodeURIComponent(username)}`,
+      { params: { neighbors } }
+    ),
+  // Server-sent events: a "snapshot" of the top entries, then "delta"s of rank changes
+  leaderboardStreamUrl: (contestId, top) =>
+    `${API_BASE_URL}/contests/${contestId}/leaderboard/stream?top=${top}`,
 };
 
 // Submission API
 export const submissionAPI = {
   submitCode: (data) => api.post("/submissions", data),
   getSubmission: (submissionId) => api.get(`/submissions/${submissionId}`),
+  // Server-sent events: "status" while judging, one "verdict" at the end
+  submissionEventsUrl: (submissionId) =>
+    `${API_BASE_URL}/submissions/${submissionId}/events`,
 };
 
 // Health check